@@ -10,10 +10,8 @@ import com.redpxnda.nucleus.registry.NucleusNamespaces;
 import dev.architectury.event.events.common.CommandRegistrationEvent;
 import dev.architectury.event.events.common.LifecycleEvent;
 import dev.architectury.event.events.common.PlayerEvent;
-import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.Identifier;
-import net.minecraft.util.JsonHelper;
 import org.apache.logging.log4j.util.TriConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,11 +24,11 @@ import smartin.miapi.injectors.PropertySubstitution;
 import smartin.miapi.item.ItemToModularConverter;
 import smartin.miapi.item.ModularItemStackConverter;
 import smartin.miapi.item.modular.PropertyResolver;
-import smartin.miapi.item.modular.VisualModularItem;
 import smartin.miapi.modules.ItemModule;
 import smartin.miapi.modules.MiapiPermissions;
 import smartin.miapi.modules.abilities.util.ItemAbilityManager;
 import smartin.miapi.modules.cache.CacheCommands;
+import smartin.miapi.modules.cache.CacheDependencyTracker;
 import smartin.miapi.modules.cache.ModularItemCache;
 import smartin.miapi.modules.conditions.ConditionManager;
 import smartin.miapi.modules.material.MaterialCommand;
@@ -61,6 +59,7 @@ public class Miapi {
         setupNetworking();
         RegistryInventory.setup();
         ReloadEvents.setup();
+        CacheDependencyTracker.setup();
         ItemAbilityManager.setup();
         AttributeRegistry.setup();
         ConditionManager.setup();
@@ -70,14 +69,13 @@ public class Miapi {
         LifecycleEvent.SERVER_BEFORE_START.register(minecraftServer -> server = minecraftServer);
         PlayerEvent.PLAYER_JOIN.register((player -> new Thread(() -> MiapiPermissions.getPerms(player)).start()));
 
-        registerReloadHandler(ReloadEvents.MAIN, "modules", RegistryInventory.modules,
-                (isClient, path, data) -> ItemModule.loadFromData(path, data, isClient), -0.5f);
+        registerJsonReloadHandler(ReloadEvents.MAIN, "modules", RegistryInventory.modules,
+                (isClient, path, data) -> ItemModule.loadFromData(path, data.getAsJsonObject(), isClient), -0.5f);
         registerReloadHandler(ReloadEvents.MAIN, "module_extensions", Collections.synchronizedMap(new LinkedHashMap<>()),
                 (isClient, path, data) -> ItemModule.loadModuleExtension(path, data, isClient), -0.4f);
 
-        registerReloadHandler(ReloadEvents.MAIN, "injectors", bl -> PropertySubstitution.injectorsCount = 0,
-                (isClient, path, data) -> {
-                    JsonElement element = JsonHelper.deserialize(data);
+        registerJsonReloadHandler(ReloadEvents.MAIN, "injectors", bl -> PropertySubstitution.injectorsCount = 0,
+                (isClient, path, element) -> {
                     if (element instanceof JsonObject object) {
                         PropertySubstitution.targetSelectionDispatcher.dispatcher()
                                 .triggerTargetFrom(object.get("target"), PropertySubstitution.getInjector(object));
@@ -90,52 +88,28 @@ public class Miapi {
         ReloadEvents.END.subscribe(isClient -> {
             Miapi.LOGGER.info("Loaded " + PropertySubstitution.injectorsCount + " Injectors/Property Substitutors");
             Miapi.LOGGER.info("Loaded " + RegistryInventory.modules.getFlatMap().size() + " Modules");
-            ModularItemCache.discardCache();
+            CacheDependencyTracker.onReloadEnd();
         });
-        PropertyResolver.register(new Identifier(Miapi.MOD_ID, "module"), (moduleInstance, oldMap) -> {
+        PropertyResolver.register(new Identifier(Miapi.MOD_ID, "module"), (PropertyResolver.StaticPropertyProvider) (moduleInstance, oldMap) -> {
             Map<ModuleProperty, JsonElement> map = new ConcurrentHashMap<>();
-            moduleInstance.module.getProperties()
-                    .forEach((key, jsonData) -> map.put(RegistryInventory.moduleProperties.get(key), jsonData));
+            moduleInstance.module.getProperties().forEach((key, jsonData) -> {
+                ModuleProperty property = RegistryInventory.moduleProperties.get(key);
+                if (property != null) {
+                    map.put(property, jsonData);
+                }
+            });
             return map;
         });
         PropertyResolver.register("module_data", (moduleInstance, oldMap) -> {
-            Map<ModuleProperty, JsonElement> map = new ConcurrentHashMap<>();
             String properties = moduleInstance.moduleData.get("properties");
             if (properties != null) {
-                JsonObject moduleJson = gson.fromJson(properties, JsonObject.class);
-                if (moduleJson != null) {
-                    moduleJson.entrySet().forEach(stringJsonElementEntry -> {
-                        ModuleProperty property = RegistryInventory.moduleProperties
-                                .get(stringJsonElementEntry.getKey());
-                        if (property != null) {
-                            map.put(property, stringJsonElementEntry.getValue());
-                        }
-                    });
-                }
-            }
-            return map;
-        });
-        ModularItemCache.setSupplier(ItemModule.MODULE_KEY, itemStack -> {
-            if (itemStack.getItem() instanceof VisualModularItem) {
-                NbtCompound tag = itemStack.getOrCreateNbt();
-                try {
-                    String modulesString;
-                    if (tag.contains(ItemModule.NBT_MODULE_KEY) && tag.get(ItemModule.NBT_MODULE_KEY) != null) {
-                        modulesString = tag.getString(ItemModule.NBT_MODULE_KEY);
-                    } else {
-                        modulesString = tag.getString(ItemModule.MODULE_KEY);
-                    }
-                    //String modulesString = tag.getString(ItemModule.MODULE_KEY);
-                    return Miapi.gson.fromJson(modulesString, ItemModule.ModuleInstance.class);
-                } catch (Exception e) {
-                    Miapi.LOGGER.error("could not resolve Modules", e);
-                }
+                return PropertyResolver.parseModuleData(properties);
             }
-            return null;
+            return oldMap;
         });
         ModularItemCache.setSupplier(ItemModule.PROPERTY_KEY,
                 itemStack -> ItemModule.getUnmergedProperties(
-                        ModularItemCache.getVisualOnlyCache(itemStack, ItemModule.MODULE_KEY, new ItemModule.ModuleInstance(ItemModule.empty))));
+                        ModularItemCache.getVisualOnlyCache(itemStack, ItemModule.MODULE_SLOT, new ItemModule.ModuleInstance(ItemModule.empty))));
         ModularItemStackConverter.converters.add(new ItemToModularConverter());
         if (Environment.isClient()) {
             MiapiClient.init();
@@ -202,18 +176,60 @@ public class Miapi {
             ReloadEvents.registerDataPackPathToSync(MOD_ID, location);
         event.subscribe(isClient -> {
             beforeLoop.accept(isClient);
-            ReloadEvents.DATA_PACKS.forEach((path, data) -> {
-                if (path.startsWith(location + "/")) {
+            for (String path : ReloadEvents.getDataPackPaths(location)) {
+                String data = ReloadEvents.DATA_PACKS.get(path);
+                if (data != null) {
                     try {
                         handler.accept(isClient, path, data);
                     } catch (Exception e) {
                         Miapi.LOGGER.warn("could not load " + path, e);
                     }
                 }
+            }
+        }, priority);
+    }
+
+    /**
+     * Registers a reload handler that receives parsed JSON.
+     * The files of this location are parsed in parallel on {@link ReloadEvents#RELOAD_POOL} as soon as the data packs are loaded,
+     * the handler itself is still called on the reload thread in priority and data pack order.
+     */
+    public static void registerJsonReloadHandler(
+            ReloadEvents.ReloadEvent event,
+            String location,
+            Consumer<Boolean> beforeLoop,
+            TriConsumer<Boolean, String, JsonElement> handler,
+            float priority) {
+        ReloadEvents.registerDataPackPathToSync(MOD_ID, location);
+        ReloadEvents.registerJsonLocation(location);
+        event.subscribe(isClient -> {
+            beforeLoop.accept(isClient);
+            ReloadEvents.getParsedJson(location).forEach((path, data) -> {
+                try {
+                    handler.accept(isClient, path, data);
+                } catch (Exception e) {
+                    Miapi.LOGGER.warn("could not load " + path, e);
+                }
             });
         }, priority);
     }
 
+    public static void registerJsonReloadHandler(
+            ReloadEvents.ReloadEvent event,
+            String location, MiapiRegistry<?> toClear,
+            TriConsumer<Boolean, String, JsonElement> handler,
+            float prio) {
+        registerJsonReloadHandler(event, location, bl -> toClear.clear(), handler, prio);
+    }
+
+    public static void registerJsonReloadHandler(
+            ReloadEvents.ReloadEvent event,
+            String location, Map<?, ?> toClear,
+            TriConsumer<Boolean, String, JsonElement> handler,
+            float prio) {
+        registerJsonReloadHandler(event, location, bl -> toClear.clear(), handler, prio);
+    }
+
     public static void registerReloadHandler(
             ReloadEvents.ReloadEvent event,
             String location,
@@ -23,6 +23,7 @@ import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 import smartin.miapi.Miapi;
 import smartin.miapi.blocks.ModularWorkBenchRenderer;
+import smartin.miapi.client.atlas.GeneratedPaletteCache;
 import smartin.miapi.client.atlas.MaterialAtlasManager;
 import smartin.miapi.client.atlas.MaterialSpriteManager;
 import smartin.miapi.client.gui.crafting.CraftingScreen;
@@ -143,6 +144,7 @@ public class MiapiClient {
         ReloadEvents.END.subscribe(isClient -> {
             if (isClient) {
                 StatListWidget.reloadEnd();
+                GeneratedPaletteCache.save();
             }
         });
     }
@@ -0,0 +1,149 @@
+package smartin.miapi.client.atlas;
+
+import dev.architectury.platform.Platform;
+import net.minecraft.util.Util;
+import smartin.miapi.Miapi;
+import smartin.miapi.client.renderer.NativeImageGetter;
+import smartin.miapi.modules.cache.NbtContentHash;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the palettes of generated materials on disk, so warm starts skip sampling the item textures.
+ * Palettes are keyed by a hash of the source pixels, the whole file is dropped if it was written by another mod version.
+ * Only palettes used in the current session are written back, the file is replaced atomically so a crash never leaves a truncated cache.
+ */
+public class GeneratedPaletteCache {
+    protected static final int CACHE_VERSION = 1;
+    protected static final int PALETTE_SIZE = 256;
+
+    protected static Map<Long, int[]> palettes = null;
+    protected static final Set<Long> used = new HashSet<>();
+    protected static boolean dirty = false;
+
+    /**
+     * Returns the cached palette of the image or generates and caches it.
+     *
+     * @param image     the source image of the palette
+     * @param generator creates the 256 abgr colors of the palette
+     * @return the palette colors, these must not be modified
+     */
+    public static synchronized int[] getOrCreate(NativeImageGetter.ImageHolder image, Supplier<int[]> generator) {
+        if (palettes == null) {
+            palettes = read();
+        }
+        long key = hash(image);
+        used.add(key);
+        int[] palette = palettes.get(key);
+        if (palette == null) {
+            palette = generator.get();
+            if (palette.length == PALETTE_SIZE) {
+                palettes.put(key, palette);
+                dirty = true;
+            }
+        }
+        return palette;
+    }
+
+    /**
+     * Writes the used palettes to disk on the io worker if anything changed.
+     */
+    public static synchronized void save() {
+        if (!dirty || palettes == null) {
+            return;
+        }
+        Map<Long, int[]> snapshot = new HashMap<>();
+        used.forEach(key -> {
+            int[] palette = palettes.get(key);
+            if (palette != null) {
+                snapshot.put(key, palette);
+            }
+        });
+        dirty = false;
+        Util.getIoWorkerExecutor().execute(() -> write(snapshot));
+    }
+
+    protected static long hash(NativeImageGetter.ImageHolder image) {
+        long hash = NbtContentHash.SEED_HIGH ^ ((long) image.getWidth() << 32 | image.getHeight());
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                hash = (hash ^ image.getColor(x, y)) * 0x100000001B3L;
+            }
+        }
+        hash *= NbtContentHash.SEED_LOW;
+        return hash ^ (hash >>> 31);
+    }
+
+    protected static String getModVersion() {
+        return Platform.getMod(Miapi.MOD_ID).getVersion();
+    }
+
+    protected static Path getCachePath() {
+        return Platform.getGameFolder().resolve(Miapi.MOD_ID).resolve("generated_palettes.bin");
+    }
+
+    protected static Map<Long, int[]> read() {
+        Map<Long, int[]> cache = new HashMap<>();
+        Path path = getCachePath();
+        if (!Files.exists(path)) {
+            return cache;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.getInt() != CACHE_VERSION) {
+                return cache;
+            }
+            byte[] version = new byte[buffer.getInt()];
+            buffer.get(version);
+            if (!getModVersion().equals(new String(version, StandardCharsets.UTF_8))) {
+                return cache;
+            }
+            int size = buffer.getInt();
+            for (int i = 0; i < size; i++) {
+                long key = buffer.getLong();
+                int[] palette = new int[PALETTE_SIZE];
+                buffer.asIntBuffer().get(palette);
+                buffer.position(buffer.position() + PALETTE_SIZE * Integer.BYTES);
+                cache.put(key, palette);
+            }
+        } catch (Exception e) {
+            Miapi.LOGGER.warn("Could not read the generated palette cache, palettes will be regenerated", e);
+            cache.clear();
+        }
+        return cache;
+    }
+
+    protected static void write(Map<Long, int[]> cache) {
+        Path path = getCachePath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                byte[] version = getModVersion().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(version.length);
+                out.write(version);
+                out.writeInt(cache.size());
+                for (Map.Entry<Long, int[]> entry : cache.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    for (int color : entry.getValue()) {
+                        out.writeInt(color);
+                    }
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Miapi.LOGGER.warn("Could not write the generated palette cache", e);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package smartin.miapi.client.atlas;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.util.Identifier;
+import org.jetbrains.annotations.Nullable;
+import smartin.miapi.Miapi;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A single dynamic texture all non-animated recolored material sprites are packed into,
+ * so modules of different materials share one texture and one render layer.
+ * Space is handed out as square power of two regions by a buddy allocator. Freed regions are merged with their
+ * free siblings again, and if the atlas is full the least recently used regions are evicted and their keys passed to the eviction listener.
+ * Only access this from the render thread.
+ */
+public class MaterialSpriteAtlas {
+    public static final Identifier ID = new Identifier(Miapi.MOD_ID, "material_sprite_atlas");
+    public static final int SIZE = 1024;
+    public static final int MIN_REGION = 16;
+
+    @Nullable
+    protected NativeImageBackedTexture texture;
+    /**
+     * Free regions per level, level 0 is the whole atlas. Each region is packed as {@code x << 32 | y}.
+     */
+    protected final List<Set<Long>> freeRegions = new ArrayList<>();
+    protected final LinkedHashMap<Object, Region> regions = new LinkedHashMap<>(64, 0.75f, true);
+    protected final Consumer<Object> evictionListener;
+    protected int evictions = 0;
+
+    public MaterialSpriteAtlas(Consumer<Object> evictionListener) {
+        this.evictionListener = evictionListener;
+        reset();
+    }
+
+    /**
+     * Returns the region of this key and marks it as recently used.
+     */
+    @Nullable
+    public Region get(Object key) {
+        return regions.get(key);
+    }
+
+    /**
+     * Copies the pixels into a free region of the atlas and uploads only that region.
+     *
+     * @param key        the key to look up the region with later
+     * @param abgrPixels the pixels in row major order
+     * @param width      the width of the image
+     * @param height     the height of the image
+     * @return the region, or null if the image does not fit into the atlas
+     */
+    @Nullable
+    public Region put(Object key, int[] abgrPixels, int width, int height) {
+        RenderSystem.assertOnRenderThreadOrInit();
+        remove(key);
+        int level = getLevel(Math.max(width, height));
+        if (level < 0) {
+            return null;
+        }
+        long packed = allocate(level);
+        while (packed < 0 && !regions.isEmpty()) {
+            Iterator<Map.Entry<Object, Region>> eldest = regions.entrySet().iterator();
+            Map.Entry<Object, Region> evicted = eldest.next();
+            eldest.remove();
+            free(evicted.getValue().level(), evicted.getValue().x(), evicted.getValue().y());
+            evictions++;
+            evictionListener.accept(evicted.getKey());
+            packed = allocate(level);
+        }
+        if (packed < 0) {
+            return null;
+        }
+        int x = (int) (packed >>> 32);
+        int y = (int) packed;
+        NativeImageBackedTexture atlas = getTexture();
+        NativeImage image = atlas.getImage();
+        for (int py = 0; py < height; py++) {
+            for (int px = 0; px < width; px++) {
+                image.setColor(x + px, y + py, abgrPixels[px + py * width]);
+            }
+        }
+        atlas.bindTexture();
+        image.upload(0, x, y, x, y, width, height, false, false, false, false);
+        Region region = new Region(level, x, y,
+                (float) x / SIZE, (float) y / SIZE, (float) (x + width) / SIZE, (float) (y + height) / SIZE);
+        regions.put(key, region);
+        return region;
+    }
+
+    public void remove(Object key) {
+        Region region = regions.remove(key);
+        if (region != null) {
+            free(region.level(), region.x(), region.y());
+        }
+    }
+
+    /**
+     * Frees all regions, the texture itself is kept.
+     */
+    public void reset() {
+        regions.clear();
+        freeRegions.clear();
+        for (int size = SIZE; size >= MIN_REGION; size /= 2) {
+            freeRegions.add(new HashSet<>());
+        }
+        freeRegions.get(0).add(0L);
+    }
+
+    /**
+     * @return how many regions were evicted to make space, anything that stored region coordinates must be rebuilt if this changed
+     */
+    public int getEvictions() {
+        return evictions;
+    }
+
+    protected NativeImageBackedTexture getTexture() {
+        if (texture == null) {
+            texture = new NativeImageBackedTexture(SIZE, SIZE, true);
+            MinecraftClient.getInstance().getTextureManager().registerTexture(ID, texture);
+        }
+        return texture;
+    }
+
+    protected int getLevel(int size) {
+        int regionSize = SIZE;
+        int level = 0;
+        if (size > SIZE) {
+            return -1;
+        }
+        while (regionSize / 2 >= Math.max(size, MIN_REGION)) {
+            regionSize /= 2;
+            level++;
+        }
+        return level;
+    }
+
+    protected int regionSize(int level) {
+        return SIZE >> level;
+    }
+
+    protected long allocate(int level) {
+        Set<Long> free = freeRegions.get(level);
+        if (!free.isEmpty()) {
+            Iterator<Long> iterator = free.iterator();
+            long packed = iterator.next();
+            iterator.remove();
+            return packed;
+        }
+        if (level == 0) {
+            return -1;
+        }
+        long parent = allocate(level - 1);
+        if (parent < 0) {
+            return -1;
+        }
+        int x = (int) (parent >>> 32);
+        int y = (int) parent;
+        int size = regionSize(level);
+        free.add(pack(x + size, y));
+        free.add(pack(x, y + size));
+        free.add(pack(x + size, y + size));
+        return pack(x, y);
+    }
+
+    protected void free(int level, int x, int y) {
+        if (level > 0) {
+            int parentSize = regionSize(level - 1);
+            int parentX = x - x % parentSize;
+            int parentY = y - y % parentSize;
+            int size = regionSize(level);
+            Set<Long> free = freeRegions.get(level);
+            List<Long> siblings = new ArrayList<>(3);
+            for (int dx = 0; dx < parentSize; dx += size) {
+                for (int dy = 0; dy < parentSize; dy += size) {
+                    if (parentX + dx != x || parentY + dy != y) {
+                        siblings.add(pack(parentX + dx, parentY + dy));
+                    }
+                }
+            }
+            if (free.containsAll(siblings)) {
+                siblings.forEach(free::remove);
+                free(level - 1, parentX, parentY);
+                return;
+            }
+        }
+        freeRegions.get(level).add(pack(x, y));
+    }
+
+    protected static long pack(int x, int y) {
+        return (long) x << 32 | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A region of the atlas, with the uv coordinates of the image placed in it.
+     */
+    public record Region(int level, int x, int y, float minU, float minV, float maxU, float maxV) {
+    }
+}
@@ -4,31 +4,65 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.texture.NativeImage;
 import net.minecraft.client.texture.NativeImageBackedTexture;
 import net.minecraft.client.texture.Sprite;
+import net.minecraft.client.texture.SpriteContents;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
+import org.jetbrains.annotations.Nullable;
+import smartin.miapi.Miapi;
+import smartin.miapi.client.renderer.NativeImageGetter;
+import smartin.miapi.config.MiapiConfig;
 import smartin.miapi.datapack.ReloadEvents;
 import smartin.miapi.modules.material.Material;
 import smartin.miapi.modules.material.palette.SpriteColorer;
+import smartin.miapi.modules.material.palette.SpritePixelReplacer;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.IntUnaryOperator;
 
 public class MaterialSpriteManager {
-    static Map<Holder, NativeImageBackedTexture> animated_Textures = new HashMap<>();
+    static Map<Holder, AnimatedTexture> animated_Textures = new HashMap<>();
+    /**
+     * Animated textures not drawn for this many ticks are no longer updated.
+     */
+    public static final int ANIMATION_IDLE_TICKS = 20;
+    protected static long currentTick = 0;
 
     public static final long CACHE_SIZE = 10000;
     public static final long CACHE_LIFETIME = 10;
     public static final TimeUnit CACHE_LIFETIME_UNIT = TimeUnit.SECONDS;
     protected static Map<Identifier, NativeImageBackedTexture> nativeImageBackedTextureMap = new HashMap<>();
+    /**
+     * Recolors running on a worker thread, only accessed from the render thread.
+     */
+    protected static final Map<Holder, CompletableFuture<int[]>> pendingRecolors = new HashMap<>();
+    protected static final long UPLOAD_WINDOW_NANOS = 16_000_000L;
+    protected static final int MAX_UPLOADS_PER_WINDOW = 16;
+    protected static long uploadWindow = 0;
+    protected static int uploadsInWindow = 0;
+    protected static int placeholdersServed = 0;
+    protected static int texturesDropped = 0;
+    protected static int animatedServed = 0;
+    /**
+     * Non-animated recolored sprites share this atlas, so they can be drawn in a single render layer.
+     */
+    protected static final MaterialSpriteAtlas atlas = new MaterialSpriteAtlas(key -> {
+        if (key instanceof Holder holder) {
+            closeColorer(holder);
+        }
+    });
     //WARNING!! only access anything related to colorer ONLY from the RENDER THREAD!
     protected static final Cache<Holder, Identifier> materialSpriteCache = CacheBuilder.newBuilder()
             .maximumSize(CACHE_SIZE)
             .expireAfterAccess(CACHE_LIFETIME, CACHE_LIFETIME_UNIT)
             .removalListener(notification -> {
                 if (notification.wasEvicted()) {
+                    texturesDropped++;
                     if (notification.getValue() instanceof Identifier removeId) {
                         NativeImageBackedTexture texture = nativeImageBackedTextureMap.get(removeId);
                         if(texture!=null){
@@ -39,68 +73,250 @@ public class MaterialSpriteManager {
                     if (notification.getKey() instanceof Holder holder) {
                         //the NativeImage should already be closed by the code above, this just kept track of the NativeImageBackedTexture to animate it
                         animated_Textures.remove(holder);
-                        try {
-                            holder.colorer.close();
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
+                        closeColorer(holder);
                     }
                 }
             })
             .build(new CacheLoader<>() {
                 @Override
                 public Identifier load(Holder key) {
-                    return getMaterialSprite(key);
+                    return createTexture(key, key.colorer().createSpriteManager(key.sprite().getContents()));
                 }
             });
 
-    public static Identifier getMaterialSprite(Sprite oldSprite, Material material, SpriteColorer materialSpriteColorer) {
+    /**
+     * Returns the recolored sprite. Sprites of colorers that {@link SpriteColorer#supportsAsyncRecolor()} are recolored on a worker thread,
+     * until they are ready this returns null and the caller should render the original sprite.
+     */
+    @Nullable
+    public static RecoloredSprite getRecoloredSprite(Sprite oldSprite, Material material, SpriteColorer materialSpriteColorer) {
         Holder holder = new Holder(oldSprite, material, materialSpriteColorer);
-        return getMaterialSprite(holder);
+        return getRecoloredSprite(holder);
     }
 
-    public static Identifier getMaterialSprite(Holder holder) {
+    @Nullable
+    public static RecoloredSprite getRecoloredSprite(Holder holder) {
+        MaterialSpriteAtlas.Region region = atlas.get(holder);
+        if (region != null) {
+            return new RecoloredSprite(MaterialSpriteAtlas.ID, region.minU(), region.minV(), region.maxU(), region.maxV());
+        }
         Identifier identifier = materialSpriteCache.getIfPresent(holder);
-        if (identifier == null) {
-            var colorer = holder.colorer().createSpriteManager(holder.sprite().getContents());
-            //important!
-            //the MaskColorer is responsible for managing any NativeImage it creates.
-            //BUT the NativeBackedTexture removes its old uploaded NativeImage, so we need to upload a copy
-            NativeImageBackedTexture nativeImageBackedTexture = new NativeImageBackedTexture(colorer.recolor().applyToCopy(IntUnaryOperator.identity()));
-            Identifier spriteId = MinecraftClient.getInstance().getTextureManager().registerDynamicTexture("miapi/dynmaterialsprites", nativeImageBackedTexture);
-            if (colorer.requireTick()) {
-                animated_Textures.put(holder, nativeImageBackedTexture);
+        if (identifier != null) {
+            AnimatedTexture animated = animated_Textures.get(holder);
+            if (animated != null) {
+                animated.lastDrawn = currentTick;
+                animatedServed++;
+            }
+            return RecoloredSprite.of(identifier);
+        }
+        CompletableFuture<int[]> task = pendingRecolors.get(holder);
+        if (task == null) {
+            if (!(holder.colorer() instanceof SpritePixelReplacer replacer) || !replacer.supportsAsyncRecolor() || SpriteColorer.isAnimatedSpriteStatic(holder.sprite().getContents())) {
+                return recolorNow(holder);
+            }
+            pendingRecolors.put(holder, startRecolor(holder, replacer));
+        } else if (task.isDone() && hasUploadBudget()) {
+            pendingRecolors.remove(holder);
+            int[] pixels = task.getNow(null);
+            if (pixels != null) {
+                SpriteContents contents = holder.sprite().getContents();
+                return upload(holder, pixels, contents.getWidth(), contents.getHeight());
             }
+            //recoloring failed, fall back to the render thread
+            return recolorNow(holder);
+        }
+        placeholdersServed++;
+        return null;
+    }
+
+    protected static RecoloredSprite recolorNow(Holder holder) {
+        var colorer = holder.colorer().createSpriteManager(holder.sprite().getContents());
+        if (colorer.requireTick()) {
+            Identifier spriteId = createTexture(holder, colorer);
             materialSpriteCache.put(holder, spriteId);
-            return spriteId;
+            animatedServed++;
+            return RecoloredSprite.of(spriteId);
         }
-        return identifier;
+        //the MaskColorer is responsible for managing any NativeImage it creates, so only read from it
+        NativeImage recolored = colorer.recolor();
+        int width = recolored.getWidth();
+        int height = recolored.getHeight();
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[x + y * width] = recolored.getColor(x, y);
+            }
+        }
+        RecoloredSprite sprite = upload(holder, pixels, width, height);
+        //the pixels are uploaded, so the images of the colorer are not needed until it recolors again
+        closeColorer(holder);
+        return sprite;
+    }
+
+    protected static void closeColorer(Holder holder) {
+        try {
+            holder.colorer.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Uploads the recolored sprite into its own texture, used for animated sprites that are updated every tick.
+     */
+    protected static Identifier createTexture(Holder holder, SpriteColorer.MaterialRecoloredSpriteHolder colorer) {
+        //important!
+        //the MaskColorer is responsible for managing any NativeImage it creates.
+        //BUT the NativeBackedTexture removes its old uploaded NativeImage, so we need to upload a copy
+        NativeImageBackedTexture nativeImageBackedTexture = new NativeImageBackedTexture(colorer.recolor().applyToCopy(IntUnaryOperator.identity()));
+        Identifier spriteId = MinecraftClient.getInstance().getTextureManager().registerDynamicTexture("miapi/dynmaterialsprites", nativeImageBackedTexture);
+        if (colorer.requireTick()) {
+            animated_Textures.put(holder, new AnimatedTexture(nativeImageBackedTexture, currentTick));
+        }
+        return spriteId;
+    }
+
+    /**
+     * Copies the pixels of the sprite on the render thread, the recoloring itself runs on a worker thread.
+     */
+    protected static CompletableFuture<int[]> startRecolor(Holder holder, SpritePixelReplacer replacer) {
+        NativeImageGetter.ImageHolder image = NativeImageGetter.get(holder.sprite().getContents());
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[x + y * width] = image.getColor(x, y);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> replacer.recolorPixels(pixels, width, height), Util.getMainWorkerExecutor())
+                .exceptionally(throwable -> {
+                    Miapi.LOGGER.warn("Could not recolor sprite " + holder.sprite().getContents().getId() + " for material " + holder.material().getKey(), throwable);
+                    return null;
+                });
+    }
+
+    /**
+     * Places the recolored pixels into the shared atlas, sprites that do not fit get their own texture.
+     */
+    protected static RecoloredSprite upload(Holder holder, int[] pixels, int width, int height) {
+        int evictionsBefore = atlas.getEvictions();
+        MaterialSpriteAtlas.Region region = atlas.put(holder, pixels, width, height);
+        texturesDropped += atlas.getEvictions() - evictionsBefore;
+        if (region != null) {
+            return new RecoloredSprite(MaterialSpriteAtlas.ID, region.minU(), region.minV(), region.maxU(), region.maxV());
+        }
+        NativeImage image = new NativeImage(width, height, false);
+        for (int i = 0; i < pixels.length; i++) {
+            image.setColor(i % width, i / width, pixels[i]);
+        }
+        Identifier spriteId = MinecraftClient.getInstance().getTextureManager().registerDynamicTexture("miapi/dynmaterialsprites", new NativeImageBackedTexture(image));
+        materialSpriteCache.put(holder, spriteId);
+        return RecoloredSprite.of(spriteId);
+    }
+
+    /**
+     * Limits the finished recolors uploaded per frame, so a screen full of new materials is spread over a few frames.
+     */
+    protected static boolean hasUploadBudget() {
+        long window = System.nanoTime() / UPLOAD_WINDOW_NANOS;
+        if (window != uploadWindow) {
+            uploadWindow = window;
+            uploadsInWindow = 0;
+        }
+        return uploadsInWindow++ < MAX_UPLOADS_PER_WINDOW;
+    }
+
+    /**
+     * @return how often the original sprite was handed out instead of a recolored one. Render caches should not keep results rendered while this changed.
+     */
+    public static int getPlaceholdersServed() {
+        return placeholdersServed;
+    }
+
+    /**
+     * @return how often a recolored sprite that was handed out before got dropped, for example to make space in the atlas.
+     * Render caches that stored the returned texture or uv coordinates have to be rebuilt if this changed.
+     */
+    public static int getTexturesDropped() {
+        return texturesDropped;
+    }
+
+    /**
+     * @return how often an animated texture was handed out. Render caches should not keep results rendered while this changed.
+     */
+    public static int getAnimatedServed() {
+        return animatedServed;
     }
 
     public static void clear() {
+        pendingRecolors.values().forEach(task -> task.cancel(false));
+        pendingRecolors.clear();
+        atlas.reset();
+        texturesDropped++;
         materialSpriteCache.invalidateAll();
     }
 
+    /**
+     * Updates the animated textures drawn in the last {@link #ANIMATION_IDLE_TICKS} ticks.
+     * At most {@link smartin.miapi.config.MiapiClientConfig.OtherCategory#animatedMaterialUploads} textures are updated per tick,
+     * the ones that have waited the longest first, so a screen full of animated materials is spread over a few ticks.
+     */
     public static void tick() {
+        currentTick++;
         if (!ReloadEvents.isInReload()) {
+            List<Map.Entry<Holder, AnimatedTexture>> visible = new ArrayList<>();
+            animated_Textures.entrySet().forEach(entry -> {
+                if (currentTick - entry.getValue().lastDrawn <= ANIMATION_IDLE_TICKS) {
+                    visible.add(entry);
+                }
+            });
+            int budget = MiapiConfig.INSTANCE.client.other.animatedMaterialUploads;
+            if (visible.size() > budget) {
+                visible.sort(Comparator.comparingLong(entry -> entry.getValue().lastUpdated));
+            }
             List<Holder> toRemove = new ArrayList<>();
-            animated_Textures.forEach(((holder, nativeImageBackedTexture) -> {
+            for (int i = 0; i < visible.size() && i < budget; i++) {
+                Holder holder = visible.get(i).getKey();
+                AnimatedTexture animated = visible.get(i).getValue();
+                animated.lastUpdated = currentTick;
                 try {
                     holder.colorer.tick((nativeImage) -> {
                         //important!
                         //the MaskColorer is responsible for managing any NativeImage it creates.
                         //BUT the NativeBackedTexture removes its old uploaded NativeImage, so we need to upload a copy
-                        nativeImageBackedTexture.getImage().copyFrom(nativeImage);
-                        nativeImageBackedTexture.upload();
+                        animated.texture.getImage().copyFrom(nativeImage);
+                        animated.texture.upload();
                     }, holder.sprite().getContents());
                 } catch (Exception e) {
                     toRemove.add(holder);
                 }
-            }));
+            }
             toRemove.forEach(materialSpriteCache::invalidate);
         }
     }
 
+    protected static class AnimatedTexture {
+        protected final NativeImageBackedTexture texture;
+        protected long lastDrawn;
+        protected long lastUpdated;
+
+        protected AnimatedTexture(NativeImageBackedTexture texture, long created) {
+            this.texture = texture;
+            this.lastDrawn = created;
+            this.lastUpdated = created;
+        }
+    }
+
     public record Holder(Sprite sprite, Material material, SpriteColorer colorer) {
     }
+
+    /**
+     * A recolored sprite, either a region of the shared atlas or a whole texture.
+     */
+    public record RecoloredSprite(Identifier texture, float minU, float minV, float maxU, float maxV) {
+        public static RecoloredSprite of(Identifier texture) {
+            return new RecoloredSprite(texture, 0, 0, 1, 1);
+        }
+    }
 }
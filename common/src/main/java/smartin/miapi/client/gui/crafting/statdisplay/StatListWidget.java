@@ -32,6 +32,7 @@ import smartin.miapi.modules.properties.damage_boosts.IllagerBane;
 import smartin.miapi.modules.properties.damage_boosts.SmiteDamage;
 import smartin.miapi.modules.properties.damage_boosts.SpiderDamage;
 import smartin.miapi.modules.properties.util.GuiWidgetSupplier;
+import smartin.miapi.modules.properties.util.MergeType;
 import smartin.miapi.registries.RegistryInventory;
 
 import java.util.*;
@@ -53,12 +54,12 @@ public class StatListWidget extends InteractAbleWidget {
             public <T extends InteractAbleWidget & SingleStatDisplay> List<T> currentList(ItemStack original, ItemStack compareTo) {
                 Set<GuiWidgetSupplier> suppliers = new HashSet<>();
                 suppliers.addAll(
-                        ItemModule.getModules(original).getPropertiesMerged().keySet().stream()
+                        ItemModule.getMergedProperties(original, MergeType.SMART).keySet().stream()
                                 .filter(property -> property instanceof GuiWidgetSupplier)
                                 .map(property -> (GuiWidgetSupplier) property)
                                 .toList());
                 suppliers.addAll(
-                        ItemModule.getModules(compareTo).getPropertiesMerged().keySet().stream()
+                        ItemModule.getMergedProperties(compareTo, MergeType.SMART).keySet().stream()
                                 .filter(property -> property instanceof GuiWidgetSupplier)
                                 .map(property -> (GuiWidgetSupplier) property)
                                 .toList());
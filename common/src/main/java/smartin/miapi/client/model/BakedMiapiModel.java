@@ -6,15 +6,16 @@ import net.minecraft.client.render.LightmapTextureManager;
 import net.minecraft.client.render.VertexConsumer;
 import net.minecraft.client.render.VertexConsumerProvider;
 import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.render.model.BakedQuad;
 import net.minecraft.client.render.model.json.ModelOverrideList;
 import net.minecraft.client.render.model.json.ModelTransformationMode;
+import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.item.ArmorItem;
 import net.minecraft.item.ArmorMaterial;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.trim.ArmorTrim;
-import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.random.Random;
 import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
@@ -23,7 +24,6 @@ import smartin.miapi.item.modular.Transform;
 import smartin.miapi.modules.ItemModule;
 import smartin.miapi.modules.properties.EmissiveProperty;
 import smartin.miapi.modules.properties.GlintProperty;
-import smartin.miapi.registries.RegistryInventory;
 
 public class BakedMiapiModel implements MiapiModel {
     ItemModule.ModuleInstance instance;
@@ -80,16 +80,12 @@ public class BakedMiapiModel implements MiapiModel {
         MinecraftClient.getInstance().world.getProfiler().push("BakedModel");
 
         //render normally
-        for (Direction dir : Direction.values()) {
-            currentModel.getQuads(null, dir, Random.create()).forEach(quad -> {
-                VertexConsumer vertexConsumer = modelHolder.colorProvider().getConsumer(vertexConsumers, quad.getSprite(), stack, instance, transformationMode);
-                vertexConsumer.quad(matrices.peek(), quad, colors[0], colors[1], colors[2], light, overlay);
-                if (stack.hasGlint()) {
-                    VertexConsumer altConsumer = vertexConsumers.getBuffer(RegistryInventory.Client.modularItemGlint);
-                    Color glintColor = settings.getColor();
-                    altConsumer.quad(matrices.peek(), quad, glintColor.redAsFloat(), glintColor.greenAsFloat(), glintColor.blueAsFloat(), light, overlay);
-                }
-            });
+        ModelHolder.QuadVariants variants = modelHolder.getQuadVariants(currentModel);
+        BakedQuad[] quads = variants.quads();
+        boolean glint = stack.hasGlint();
+        emit(quads, matrices, vertexConsumers, stack, transformationMode, light, overlay);
+        if (glint) {
+            emitGlint(quads, matrices, vertexConsumers, light);
         }
         MinecraftClient.getInstance().world.getProfiler().pop();
 
@@ -99,9 +95,9 @@ public class BakedMiapiModel implements MiapiModel {
         ArmorMaterial armorMaterial = (stack.getItem() instanceof ArmorItem armorItem) ? armorItem.getMaterial() : null;
 
         if (trim != null && armorMaterial != null && !modelHolder.trimMode().equals(TrimRenderer.TrimMode.NONE)) {
-            ModelTransformer.getRescale(currentModel, random).forEach(quad -> {
+            for (BakedQuad quad : variants.rescaled()) {
                 TrimRenderer.renderTrims(matrices, quad, modelHolder.trimMode(), light, vertexConsumers, armorMaterial, stack);
-            });
+            }
         }
         MinecraftClient.getInstance().world.getProfiler().pop();
 
@@ -109,21 +105,44 @@ public class BakedMiapiModel implements MiapiModel {
         MinecraftClient.getInstance().world.getProfiler().push("EntityModel");
         //render from both sides if requested
         if (modelHolder.entityRendering()) {
-            ModelTransformer.getInverse(currentModel, random).forEach(quad -> {
-                VertexConsumer vertexConsumer = modelHolder.colorProvider().getConsumer(vertexConsumers, quad.getSprite(), stack, instance, transformationMode);
-                vertexConsumer.quad(matrices.peek(), quad, colors[0], colors[1], colors[2], light, overlay);
-                if (stack.hasGlint()) {
-                    VertexConsumer altConsumer = vertexConsumers.getBuffer(RegistryInventory.Client.modularItemGlint);
-                    Color glintColor = settings.getColor();
-                    altConsumer.quad(matrices.peek(), quad, glintColor.redAsFloat(), glintColor.greenAsFloat(), glintColor.blueAsFloat(), light, overlay);
-                }
-            });
+            BakedQuad[] inverse = variants.inverse();
+            emit(inverse, matrices, vertexConsumers, stack, transformationMode, light, overlay);
+            if (glint) {
+                emitGlint(inverse, matrices, vertexConsumers, light);
+            }
         }
 
         MinecraftClient.getInstance().world.getProfiler().pop();
         matrices.pop();
     }
 
+    /**
+     * Emits the quads, the vertex consumer is only resolved again when the sprite changes.
+     * All quads are emitted before any other buffer is requested, so the consumer stays valid.
+     */
+    protected void emit(BakedQuad[] quads, MatrixStack matrices, VertexConsumerProvider vertexConsumers, ItemStack stack, ModelTransformationMode transformationMode, int light, int overlay) {
+        MatrixStack.Entry entry = matrices.peek();
+        Sprite currentSprite = null;
+        VertexConsumer vertexConsumer = null;
+        for (BakedQuad quad : quads) {
+            if (vertexConsumer == null || quad.getSprite() != currentSprite) {
+                currentSprite = quad.getSprite();
+                vertexConsumer = modelHolder.colorProvider().getConsumer(vertexConsumers, currentSprite, stack, instance, transformationMode);
+            }
+            vertexConsumer.quad(entry, quad, colors[0], colors[1], colors[2], light, overlay);
+        }
+    }
+
+    protected void emitGlint(BakedQuad[] quads, MatrixStack matrices, VertexConsumerProvider vertexConsumers, int light) {
+        Color glintColor = settings.getColor();
+        GlintBatch.add(quads, matrices.peek(), glintColor.redAsFloat(), glintColor.greenAsFloat(), glintColor.blueAsFloat(), light, vertexConsumers);
+    }
+
+    @Override
+    public boolean isStatic() {
+        return model.getOverrides() == null || model.getOverrides().equals(ModelOverrideList.EMPTY);
+    }
+
     public BakedModel resolve(BakedModel model, ItemStack stack, @Nullable LivingEntity entity, int light) {
         if (model.getOverrides() != null && !model.getOverrides().equals(ModelOverrideList.EMPTY)) {
             BakedModel override = model.getOverrides().apply(model, stack, MinecraftClient.getInstance().world, entity, light);
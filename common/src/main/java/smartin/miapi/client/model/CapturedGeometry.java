@@ -0,0 +1,179 @@
+package smartin.miapi.client.model;
+
+import net.minecraft.client.render.LightmapTextureManager;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.util.math.MatrixStack;
+import org.joml.Matrix3f;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The recorded vertices of a static {@link MiapiItemModel}, in the space of the item after its {@link MiapiItemModel.ModelTransformer}s.
+ * Replaying it emits every vertex with one matrix transform, without walking the module tree or resolving any models again.
+ * Light and overlay are recorded with a placeholder and replaced with the current values on replay,
+ * light levels overwritten by the model itself, like emissive modules, are kept.
+ */
+public class CapturedGeometry {
+    /**
+     * Marks a model that cannot be captured.
+     */
+    public static final CapturedGeometry NONE = new CapturedGeometry(new LinkedHashMap<>());
+    /**
+     * A light level that is never used by the game, passed while recording to find vertices using the current light.
+     */
+    protected static final int PLACEHOLDER_LEVEL = 0xFF;
+    public static final int CAPTURE_LIGHT = LightmapTextureManager.pack(PLACEHOLDER_LEVEL, PLACEHOLDER_LEVEL);
+    protected static final int FLOATS = 8;
+    protected static final int INTS = 2;
+
+    protected final Map<RenderLayer, Layer> layers;
+
+    protected CapturedGeometry(Map<RenderLayer, Layer> layers) {
+        this.layers = layers;
+    }
+
+    /**
+     * Records everything the renderer emits into the returned provider. Only {@link VertexConsumerProvider#getBuffer(RenderLayer)} is used.
+     */
+    public static Recorder record() {
+        return new Recorder();
+    }
+
+    public void replay(MatrixStack.Entry entry, VertexConsumerProvider vertexConsumers, int light, int overlay) {
+        Matrix4f position = entry.getPositionMatrix();
+        Matrix3f normal = entry.getNormalMatrix();
+        int currentBlock = LightmapTextureManager.getBlockLightCoordinates(light);
+        int currentSky = LightmapTextureManager.getSkyLightCoordinates(light);
+        Vector4f pos = new Vector4f();
+        Vector3f norm = new Vector3f();
+        layers.forEach((renderLayer, layer) -> {
+            VertexConsumer consumer = vertexConsumers.getBuffer(renderLayer);
+            float[] floats = layer.floats;
+            int[] ints = layer.ints;
+            for (int i = 0; i < layer.count; i++) {
+                int f = i * FLOATS;
+                int n = i * INTS;
+                position.transform(pos.set(floats[f], floats[f + 1], floats[f + 2], 1.0f));
+                normal.transform(norm.set(floats[f + 5], floats[f + 6], floats[f + 7]));
+                int color = ints[n];
+                int recordedLight = ints[n + 1];
+                int block = LightmapTextureManager.getBlockLightCoordinates(recordedLight);
+                int sky = LightmapTextureManager.getSkyLightCoordinates(recordedLight);
+                consumer.vertex(pos.x(), pos.y(), pos.z(),
+                        (color >> 16 & 0xFF) / 255.0f, (color >> 8 & 0xFF) / 255.0f, (color & 0xFF) / 255.0f, (color >>> 24) / 255.0f,
+                        floats[f + 3], floats[f + 4],
+                        overlay,
+                        LightmapTextureManager.pack(block == PLACEHOLDER_LEVEL ? currentBlock : block, sky == PLACEHOLDER_LEVEL ? currentSky : sky),
+                        norm.x(), norm.y(), norm.z());
+            }
+        });
+    }
+
+    public boolean isEmpty() {
+        return layers.isEmpty();
+    }
+
+    public static class Recorder implements VertexConsumerProvider {
+        protected final Map<RenderLayer, Layer> layers = new LinkedHashMap<>();
+
+        @Override
+        public VertexConsumer getBuffer(RenderLayer renderLayer) {
+            return layers.computeIfAbsent(renderLayer, layer -> new Layer());
+        }
+
+        public CapturedGeometry finish() {
+            layers.values().removeIf(layer -> layer.count == 0);
+            layers.values().forEach(Layer::trim);
+            return new CapturedGeometry(layers);
+        }
+    }
+
+    /**
+     * The vertices of one render layer. Positions, uv and normals are stored as floats, color and light as ints.
+     */
+    protected static class Layer implements VertexConsumer {
+        protected float[] floats = new float[FLOATS * 64];
+        protected int[] ints = new int[INTS * 64];
+        protected int count = 0;
+        protected final float[] currentFloats = new float[FLOATS];
+        protected int currentColor = 0xFFFFFFFF;
+        protected int currentLight = CAPTURE_LIGHT;
+        protected boolean colorFixed = false;
+        protected int fixedColor = 0xFFFFFFFF;
+
+        @Override
+        public VertexConsumer vertex(double x, double y, double z) {
+            currentFloats[0] = (float) x;
+            currentFloats[1] = (float) y;
+            currentFloats[2] = (float) z;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer color(int red, int green, int blue, int alpha) {
+            currentColor = (alpha & 0xFF) << 24 | (red & 0xFF) << 16 | (green & 0xFF) << 8 | blue & 0xFF;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer texture(float u, float v) {
+            currentFloats[3] = u;
+            currentFloats[4] = v;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer overlay(int u, int v) {
+            return this;
+        }
+
+        @Override
+        public VertexConsumer light(int u, int v) {
+            currentLight = (u & 0xFFFF) | (v & 0xFFFF) << 16;
+            return this;
+        }
+
+        @Override
+        public VertexConsumer normal(float x, float y, float z) {
+            currentFloats[5] = x;
+            currentFloats[6] = y;
+            currentFloats[7] = z;
+            return this;
+        }
+
+        @Override
+        public void next() {
+            if (count * FLOATS >= floats.length) {
+                floats = Arrays.copyOf(floats, floats.length * 2);
+                ints = Arrays.copyOf(ints, ints.length * 2);
+            }
+            System.arraycopy(currentFloats, 0, floats, count * FLOATS, FLOATS);
+            ints[count * INTS] = colorFixed ? fixedColor : currentColor;
+            ints[count * INTS + 1] = currentLight;
+            count++;
+        }
+
+        @Override
+        public void fixedColor(int red, int green, int blue, int alpha) {
+            colorFixed = true;
+            fixedColor = (alpha & 0xFF) << 24 | (red & 0xFF) << 16 | (green & 0xFF) << 8 | blue & 0xFF;
+        }
+
+        @Override
+        public void unfixColor() {
+            colorFixed = false;
+        }
+
+        protected void trim() {
+            floats = Arrays.copyOf(floats, count * FLOATS);
+            ints = Arrays.copyOf(ints, count * INTS);
+        }
+    }
+}
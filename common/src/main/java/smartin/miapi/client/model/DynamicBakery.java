@@ -1,10 +1,13 @@
 package smartin.miapi.client.model;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.item.ModelPredicateProvider;
 import net.minecraft.client.item.ModelPredicateProviderRegistry;
 import net.minecraft.client.render.model.ModelRotation;
@@ -17,6 +20,7 @@ import net.minecraft.entity.LivingEntity;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.random.Random;
 import org.jetbrains.annotations.Nullable;
@@ -26,8 +30,10 @@ import smartin.miapi.item.modular.Transform;
 import smartin.miapi.modules.properties.render.ModelProperty;
 
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Environment(EnvType.CLIENT)
 public class DynamicBakery {
@@ -39,23 +45,100 @@ public class DynamicBakery {
     }
 
     private static final BakedQuadFactory QUAD_FACTORY = new BakedQuadFactory();
+    /**
+     * Finished bakes, shared by every item using the same model, color and transform.
+     */
+    private static final Cache<BakeKey, BakedSingleModel> BAKED_MODELS = CacheBuilder.newBuilder()
+            .maximumSize(4096)
+            .build();
+    private static final Map<BakeKey, CompletableFuture<BakedSingleModel>> PENDING_BAKES = new ConcurrentHashMap<>();
+
+    /**
+     * Bakes the model in the background. Identical requests share one bake and the result is cached,
+     * so the returned future is already complete if this model was baked before.
+     * Everything that touches the {@link ModelLoader}, the sprite atlases or model overrides is resolved on the render thread,
+     * only the quads are generated on a worker thread.
+     * The future completes with null if the model could not be baked.
+     */
+    public static CompletableFuture<BakedSingleModel> bakeModelAsync(JsonUnbakedModel unbakedModel, Function<SpriteIdentifier, Sprite> textureGetter, int color, Transform settings) {
+        BakeKey key = new BakeKey(unbakedModel, textureGetter, color, settings.copy());
+        BakedSingleModel cached = BAKED_MODELS.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<BakedSingleModel> bake = new CompletableFuture<>();
+        CompletableFuture<BakedSingleModel> pending = PENDING_BAKES.putIfAbsent(key, bake);
+        if (pending != null) {
+            return pending;
+        }
+        onRenderThread(() -> plan(unbakedModel, textureGetter, color, key.transform(), false))
+                .thenApplyAsync(DynamicBakery::build, Util.getMainWorkerExecutor())
+                .thenCompose(model -> {
+                    if (hasQuads(model)) {
+                        return CompletableFuture.completedFuture(model);
+                    }
+                    return onRenderThread(() -> plan(unbakedModel, textureGetter, color, key.transform(), true))
+                            .thenApplyAsync(DynamicBakery::build, Util.getMainWorkerExecutor())
+                            .exceptionally(suppressed -> model);
+                })
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return null;
+                })
+                .thenAccept(model -> {
+                    if (model != null) {
+                        BAKED_MODELS.put(key, model);
+                    }
+                    PENDING_BAKES.remove(key);
+                    bake.complete(model);
+                });
+        return bake;
+    }
+
+    /**
+     * Bakes the model on the calling thread, which has to be the render thread.
+     * A finished bake is reused, a bake still running in the background is not waited for.
+     */
+    @Nullable
+    public static BakedSingleModel bakeModelNow(JsonUnbakedModel unbakedModel, Function<SpriteIdentifier, Sprite> textureGetter, int color, Transform settings) {
+        BakeKey key = new BakeKey(unbakedModel, textureGetter, color, settings.copy());
+        BakedSingleModel cached = BAKED_MODELS.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        BakedSingleModel model = bakeModel(unbakedModel, textureGetter, color, key.transform());
+        if (model != null) {
+            BAKED_MODELS.put(key, model);
+        }
+        return model;
+    }
+
+    /**
+     * @return how many bakes are still running, render caches should not treat models as final while this is not 0
+     */
+    public static int getPendingBakes() {
+        return PENDING_BAKES.size();
+    }
+
+    /**
+     * Drops all cached bakes, they reference sprites and models of the old resources.
+     */
+    public static void clearBakedModels() {
+        BAKED_MODELS.invalidateAll();
+    }
 
+    /**
+     * Bakes the model on the calling thread, which has to be the render thread.
+     */
+    @Nullable
     public static BakedSingleModel bakeModel(JsonUnbakedModel unbakedModel, Function<SpriteIdentifier, Sprite> textureGetter, int color, Transform settings) {
         try {
-            ModelLoader modelLoader = ModelLoadAccessor.getLoader();
-            AtomicReference<JsonUnbakedModel> actualModel = new AtomicReference<>(unbakedModel);
-            unbakedModel.getModelDependencies().stream().filter(identifier -> identifier.toString().equals("minecraft:item/generated") || identifier.toString().contains("handheld")).findFirst().ifPresent(identifier -> {
-                actualModel.set(ITEM_MODEL_GENERATOR.create(ModelProperty.textureGetter, unbakedModel));
-            });
-            BakedSingleModel model = DynamicBakery.bake(actualModel.get(), modelLoader, unbakedModel.getRootModel(), textureGetter, Transform.toModelTransformation(settings), new Identifier(unbakedModel.id), true, color);
-            for (Direction direction : Direction.values()) {
-                if (!model.getQuads(null, direction, Random.create()).isEmpty()) {
-                    return model;
-                }
+            BakedSingleModel model = build(plan(unbakedModel, textureGetter, color, settings, false));
+            if (hasQuads(model)) {
+                return model;
             }
             try {
-                actualModel.set(ITEM_MODEL_GENERATOR.create(ModelProperty.textureGetter, unbakedModel));
-                return DynamicBakery.bake(actualModel.get(), modelLoader, unbakedModel.getRootModel(), textureGetter, Transform.toModelTransformation(settings), new Identifier(unbakedModel.id), true, color);
+                return build(plan(unbakedModel, textureGetter, color, settings, true));
             } catch (Exception suppressed) {
 
             }
@@ -67,27 +150,80 @@ public class DynamicBakery {
     }
 
     public static BakedSingleModel bake(JsonUnbakedModel model, ModelLoader loader, JsonUnbakedModel parent, Function<SpriteIdentifier, Sprite> textureGetter, Transform settings, Identifier id, boolean hasDepth, int color) {
-        Sprite sprite = textureGetter.apply(model.resolveSprite("particle"));
-        if (model.getRootModel() == ModelLoader.BLOCK_ENTITY_MARKER) {
-            BakedModel model1 = new BuiltinBakedModel(model.getTransformations(), compileOverrides(model, loader, parent, textureGetter, ModelRotation.X0_Y0, color), sprite, model.getGuiLight().isSide());
-            return dynamicBakedModel(rotate(model1, settings));
-        } else {
-            BasicBakedModel.Builder builder = (new BasicBakedModel.Builder(model, compileOverrides(model, loader, parent, textureGetter, ModelRotation.X0_Y0, color), hasDepth)).setParticle(sprite);
+        return build(plan(model, loader, parent, textureGetter, settings, id, hasDepth, color));
+    }
 
-            for (ModelElement modelElement : model.getElements()) {
+    private static <T> CompletableFuture<T> onRenderThread(Supplier<T> supplier) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.isOnThread()) {
+            try {
+                return CompletableFuture.completedFuture(supplier.get());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(supplier, client);
+    }
+
+    private static boolean hasQuads(BakedSingleModel model) {
+        for (Direction direction : Direction.values()) {
+            if (!model.getQuads(null, direction, Random.create()).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    /**
+     * Resolves the model, its sprites and its overrides. Only call this on the render thread.
+     *
+     * @param generated if true the model is always passed through the {@link ItemModelGenerator}
+     */
+    private static BakePlan plan(JsonUnbakedModel unbakedModel, Function<SpriteIdentifier, Sprite> textureGetter, int color, Transform settings, boolean generated) {
+        ModelLoader modelLoader = ModelLoadAccessor.getLoader();
+        JsonUnbakedModel actualModel = unbakedModel;
+        if (generated || unbakedModel.getModelDependencies().stream().anyMatch(identifier -> identifier.toString().equals("minecraft:item/generated") || identifier.toString().contains("handheld"))) {
+            actualModel = ITEM_MODEL_GENERATOR.create(ModelProperty.textureGetter, unbakedModel);
+        }
+        return plan(actualModel, modelLoader, unbakedModel.getRootModel(), textureGetter, Transform.toModelTransformation(settings), new Identifier(unbakedModel.id), true, color);
+    }
+
+    private static BakePlan plan(JsonUnbakedModel model, ModelLoader loader, JsonUnbakedModel parent, Function<SpriteIdentifier, Sprite> textureGetter, Transform settings, Identifier id, boolean hasDepth, int color) {
+        Sprite sprite = textureGetter.apply(model.resolveSprite("particle"));
+        ModelOverrideList overrides = compileOverrides(model, loader, parent, textureGetter, ModelRotation.X0_Y0, color);
+        List<PlannedFace> faces = new ArrayList<>();
+        if (model.getRootModel() != ModelLoader.BLOCK_ENTITY_MARKER) {
+            for (ModelElement modelElement : model.getElements()) {
                 for (Direction direction : modelElement.faces.keySet()) {
                     ModelElementFace modelElementFace = modelElement.faces.get(direction);
-                    Sprite sprite2 = textureGetter.apply(model.resolveSprite(modelElementFace.textureId));
-                    if (modelElementFace.cullFace == null) {
-                        builder.addQuad(createQuad(modelElement, modelElementFace, sprite2, direction, ModelRotation.X0_Y0, id, color));
-                    } else {
-                        builder.addQuad(Direction.transform(ModelRotation.X0_Y0.getRotation().getMatrix(), modelElementFace.cullFace), createQuad(modelElement, modelElementFace, sprite2, direction, ModelRotation.X0_Y0, id, color));
-                    }
+                    faces.add(new PlannedFace(modelElement, modelElementFace, direction, textureGetter.apply(model.resolveSprite(modelElementFace.textureId))));
+                }
+            }
+        }
+        return new BakePlan(model, overrides, sprite, faces, settings, id, hasDepth, color);
+    }
+
+    /**
+     * Generates the quads of a resolved model, this is safe to call from any thread.
+     */
+    private static BakedSingleModel build(BakePlan plan) {
+        JsonUnbakedModel model = plan.model();
+        if (model.getRootModel() == ModelLoader.BLOCK_ENTITY_MARKER) {
+            BakedModel model1 = new BuiltinBakedModel(model.getTransformations(), plan.overrides(), plan.particle(), model.getGuiLight().isSide());
+            return dynamicBakedModel(rotate(model1, plan.settings()));
+        } else {
+            BasicBakedModel.Builder builder = (new BasicBakedModel.Builder(model, plan.overrides(), plan.hasDepth())).setParticle(plan.particle());
+
+            for (PlannedFace face : plan.faces()) {
+                BakedQuad quad = createQuad(face.element(), face.face(), face.sprite(), face.side(), ModelRotation.X0_Y0, plan.id(), plan.color());
+                if (face.face().cullFace == null) {
+                    builder.addQuad(quad);
+                } else {
+                    builder.addQuad(Direction.transform(ModelRotation.X0_Y0.getRotation().getMatrix(), face.face().cullFace), quad);
                 }
             }
 
-            return dynamicBakedModel(rotate(builder.build(), settings));
+            return dynamicBakedModel(rotate(builder.build(), plan.settings()));
         }
     }
 
@@ -261,4 +397,33 @@ public class DynamicBakery {
         private record InlinedCondition(int index, float threshold) {
         }
     }
+
+    private record BakePlan(JsonUnbakedModel model, ModelOverrideList overrides, Sprite particle, List<PlannedFace> faces,
+                            Transform settings, Identifier id, boolean hasDepth, int color) {
+    }
+
+    private record PlannedFace(ModelElement element, ModelElementFace face, Direction side, Sprite sprite) {
+    }
+
+    /**
+     * Unbaked models and texture getters are compared by identity, they are shared until the next reload.
+     */
+    private record BakeKey(JsonUnbakedModel model, Function<SpriteIdentifier, Sprite> textureGetter, int color, Transform transform) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof BakeKey other &&
+                   model == other.model &&
+                   textureGetter == other.textureGetter &&
+                   color == other.color &&
+                   transform.equals(other.transform);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = System.identityHashCode(model);
+            hash = 31 * hash + System.identityHashCode(textureGetter);
+            hash = 31 * hash + color;
+            return 31 * hash + transform.hashCode();
+        }
+    }
 }
@@ -0,0 +1,132 @@
+package smartin.miapi.client.model;
+
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3i;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix3f;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.joml.Vector4f;
+import smartin.miapi.registries.RegistryInventory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the glint quads of all modules of one item and emits them into {@link RegistryInventory.Client#modularItemGlint} in one pass.
+ * The glint texture coordinates are computed in the space of the item and passed in the overlay attribute,
+ * so no shader uniforms have to be set per item.
+ * Only use this from the render thread.
+ */
+public class GlintBatch {
+    /**
+     * The scale of the glint texture relative to the item, matching the original shader.
+     */
+    protected static final float GLINT_SCALE = 0.0078125f * 100 * 2;
+    /**
+     * Glint uvs are passed as shorts in 1/1024 steps.
+     */
+    protected static final float UV_PRECISION = 1024;
+    protected static final int VERTEX_STRIDE = 8;
+
+    @Nullable
+    protected static GlintBatch current;
+
+    protected final Matrix4f itemMatrix;
+    protected final List<Entry> entries = new ArrayList<>();
+
+    protected GlintBatch(Matrix4f itemMatrix) {
+        this.itemMatrix = new Matrix4f(itemMatrix);
+    }
+
+    /**
+     * Starts collecting glint quads for an item.
+     *
+     * @param itemMatrix the matrix of the item, glint uvs are relative to it
+     * @return the batch that was active before, pass it to {@link #end(GlintBatch, VertexConsumerProvider)}
+     */
+    @Nullable
+    public static GlintBatch begin(Matrix4f itemMatrix) {
+        GlintBatch previous = current;
+        current = new GlintBatch(itemMatrix);
+        return previous;
+    }
+
+    /**
+     * Emits all collected quads and restores the batch that was active before {@link #begin(Matrix4f)}.
+     */
+    public static void end(@Nullable GlintBatch previous, VertexConsumerProvider vertexConsumers) {
+        GlintBatch batch = current;
+        current = previous;
+        if (batch != null) {
+            batch.flush(vertexConsumers);
+        }
+    }
+
+    /**
+     * Adds the quads to the batch of the current item.
+     * Quads rendered outside of a batch are emitted right away, relative to their own matrix.
+     */
+    public static void add(BakedQuad[] quads, MatrixStack.Entry entry, float red, float green, float blue, int light, VertexConsumerProvider vertexConsumers) {
+        if (quads.length == 0) {
+            return;
+        }
+        Entry glintEntry = new Entry(quads, new Matrix4f(entry.getPositionMatrix()), new Matrix3f(entry.getNormalMatrix()), red, green, blue, light);
+        if (current != null) {
+            current.entries.add(glintEntry);
+        } else {
+            GlintBatch batch = new GlintBatch(entry.getPositionMatrix());
+            batch.entries.add(glintEntry);
+            batch.flush(vertexConsumers);
+        }
+    }
+
+    protected void flush(VertexConsumerProvider vertexConsumers) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        VertexConsumer consumer = vertexConsumers.getBuffer(RegistryInventory.Client.modularItemGlint);
+        Matrix4f toItem = new Matrix4f(itemMatrix).invert();
+        Matrix4f local = new Matrix4f();
+        Vector4f position = new Vector4f();
+        Vector4f itemPosition = new Vector4f();
+        Vector3f normal = new Vector3f();
+        for (Entry entry : entries) {
+            toItem.mul(entry.position(), local);
+            for (BakedQuad quad : entry.quads()) {
+                int[] data = quad.getVertexData();
+                Vec3i face = quad.getFace().getVector();
+                entry.normal().transform(normal.set(face.getX(), face.getY(), face.getZ()));
+                for (int vertex = 0; vertex < 4; vertex++) {
+                    int offset = vertex * VERTEX_STRIDE;
+                    float x = Float.intBitsToFloat(data[offset]);
+                    float y = Float.intBitsToFloat(data[offset + 1]);
+                    float z = Float.intBitsToFloat(data[offset + 2]);
+                    entry.position().transform(position.set(x, y, z, 1.0f));
+                    local.transform(itemPosition.set(x, y, z, 1.0f));
+                    int glintU = toShort(-itemPosition.x() * GLINT_SCALE + 0.5f);
+                    int glintV = toShort(-itemPosition.y() * GLINT_SCALE + 0.5f);
+                    consumer.vertex(position.x(), position.y(), position.z(),
+                            entry.red(), entry.green(), entry.blue(), 1.0f,
+                            Float.intBitsToFloat(data[offset + 4]), Float.intBitsToFloat(data[offset + 5]),
+                            glintU & 0xFFFF | (glintV & 0xFFFF) << 16,
+                            entry.light(),
+                            normal.x(), normal.y(), normal.z());
+                }
+            }
+        }
+        entries.clear();
+    }
+
+    protected static int toShort(float uv) {
+        return MathHelper.clamp(Math.round(uv * UV_PRECISION), Short.MIN_VALUE, Short.MAX_VALUE);
+    }
+
+    protected record Entry(BakedQuad[] quads, Matrix4f position, Matrix3f normal,
+                           float red, float green, float blue, int light) {
+    }
+}
@@ -8,14 +8,17 @@ import net.minecraft.entity.LivingEntity;
 import net.minecraft.item.ItemStack;
 import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix4f;
-import smartin.miapi.datapack.ReloadEvents;
+import smartin.miapi.client.atlas.MaterialSpriteManager;
+import smartin.miapi.client.renderer.GuiIconCache;
+import smartin.miapi.config.MiapiConfig;
 import smartin.miapi.item.modular.VisualModularItem;
 import smartin.miapi.modules.ItemModule;
 import smartin.miapi.modules.cache.ModularItemCache;
-import smartin.miapi.registries.RegistryInventory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class MiapiItemModel implements MiapiModel {
     public static List<ModelSupplier> modelSuppliers = new ArrayList<>();
@@ -23,6 +26,16 @@ public class MiapiItemModel implements MiapiModel {
     public final ItemStack stack;
     public final ModuleModel rootModel;
     private static final String CACHE_KEY = "miapi_model_rework";
+    /**
+     * The recorded geometry per model type and transformation mode, only accessed from the render thread.
+     */
+    private final Map<CaptureKey, CapturedGeometry> capturedGeometry = new HashMap<>();
+    private int capturedTexturesDropped = 0;
+    /**
+     * The cached gui icon of this item, only accessed from the render thread.
+     */
+    @Nullable
+    public GuiIconCache.Icon guiIcon;
 
     static {
         ModularItemCache.setSupplier(CACHE_KEY, (MiapiItemModel::new));
@@ -66,7 +79,6 @@ public class MiapiItemModel implements MiapiModel {
             LivingEntity entity,
             int light,
             int overlay) {
-        if (ReloadEvents.isInReload()) return;
         MinecraftClient.getInstance().world.getProfiler().push("modular_item");
         matrices.push();
         for (ModelTransformer transformer : modelTransformers) {
@@ -76,17 +88,84 @@ public class MiapiItemModel implements MiapiModel {
             //needed because otherwise overwrites dont work
             entity = MinecraftClient.getInstance().player;
         }
-        RegistryInventory.Client.glintShader.getUniformOrDefault("ModelMat").set(new Matrix4f(matrices.peek().getPositionMatrix()));
-        rootModel.render(modelType, stack, matrices, mode, tickDelta, vertexConsumers, entity, light, overlay);
+        if (stack.hasGlint()) {
+            //the glint color changes over time, so glinting items are never captured
+            GlintBatch previous = GlintBatch.begin(matrices.peek().getPositionMatrix());
+            try {
+                rootModel.render(modelType, stack, matrices, mode, tickDelta, vertexConsumers, entity, light, overlay);
+            } finally {
+                GlintBatch.end(previous, vertexConsumers);
+            }
+        } else if (MiapiConfig.INSTANCE.client.other.captureStaticModels) {
+            renderCaptured(modelType, stack, matrices, mode, tickDelta, vertexConsumers, entity, light, overlay);
+        } else {
+            rootModel.render(modelType, stack, matrices, mode, tickDelta, vertexConsumers, entity, light, overlay);
+        }
         matrices.pop();
         MinecraftClient.getInstance().world.getProfiler().pop();
     }
 
+    /**
+     * Replays the captured geometry of this item if all of its models are static.
+     * The first render is always immediate, so all lazily created sub-models exist before they are checked.
+     */
+    protected void renderCaptured(
+            String modelType,
+            ItemStack stack,
+            MatrixStack matrices,
+            ModelTransformationMode mode,
+            float tickDelta,
+            VertexConsumerProvider vertexConsumers,
+            LivingEntity entity,
+            int light,
+            int overlay) {
+        int texturesDropped = MaterialSpriteManager.getTexturesDropped();
+        if (texturesDropped != capturedTexturesDropped) {
+            //the recorded uvs may point into atlas regions that were reused since
+            capturedGeometry.clear();
+            capturedTexturesDropped = texturesDropped;
+        }
+        CaptureKey key = new CaptureKey(modelType, mode);
+        CapturedGeometry geometry = capturedGeometry.get(key);
+        if (geometry != null && geometry != CapturedGeometry.NONE) {
+            geometry.replay(matrices.peek(), vertexConsumers, light, overlay);
+            return;
+        }
+        int placeholders = MaterialSpriteManager.getPlaceholdersServed();
+        rootModel.render(modelType, stack, matrices, mode, tickDelta, vertexConsumers, entity, light, overlay);
+        if (geometry == null) {
+            if (rootModel.isStatic(modelType)) {
+                int animated = MaterialSpriteManager.getAnimatedServed();
+                CapturedGeometry.Recorder recorder = CapturedGeometry.record();
+                rootModel.render(modelType, stack, new MatrixStack(), mode, tickDelta, recorder, entity, CapturedGeometry.CAPTURE_LIGHT, overlay);
+                if (placeholders != MaterialSpriteManager.getPlaceholdersServed() || texturesDropped != MaterialSpriteManager.getTexturesDropped()) {
+                    //some sprites are still being recolored, capture once they are ready
+                    return;
+                }
+                if (animated != MaterialSpriteManager.getAnimatedServed()) {
+                    //animated materials only keep updating while they are drawn, replays would not mark them
+                    geometry = CapturedGeometry.NONE;
+                } else {
+                    geometry = recorder.finish();
+                }
+            } else if (DynamicBakery.getPendingBakes() > 0) {
+                //some models are still baking, check again once they are done
+                return;
+            } else {
+                geometry = CapturedGeometry.NONE;
+            }
+            capturedGeometry.put(key, geometry);
+        }
+    }
+
     @Override
     public @Nullable Matrix4f subModuleMatrix() {
         return null;
     }
 
+    private record CaptureKey(@Nullable String modelType, ModelTransformationMode mode) {
+    }
+
     public interface ModelSupplier {
         List<MiapiModel> getModels(@Nullable String key, ItemModule.ModuleInstance module, ItemStack stack);
     }
@@ -25,4 +25,14 @@ public interface MiapiModel {
     default Matrix4f subModuleMatrix() {
         return new Matrix4f();
     }
+
+    /**
+     * A static model renders the same geometry for the same item every frame, it may only depend on the light and overlay passed to it.
+     * Items made only of static models can have their geometry captured, see {@link CapturedGeometry}.
+     *
+     * @return true if the geometry of this model never changes
+     */
+    default boolean isStatic() {
+        return false;
+    }
 }
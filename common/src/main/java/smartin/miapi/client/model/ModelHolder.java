@@ -1,11 +1,149 @@
 package smartin.miapi.client.model;
 
 import net.minecraft.client.render.model.BakedModel;
+import net.minecraft.client.render.model.BakedQuad;
+import net.minecraft.client.render.model.json.ModelOverrideList;
+import net.minecraft.util.math.random.Random;
 import org.joml.Matrix4f;
+import smartin.miapi.client.model.item.BakedSingleModelOverrides;
 import smartin.miapi.client.renderer.TrimRenderer;
 import smartin.miapi.modules.properties.render.colorproviders.ColorProvider;
 
-public record ModelHolder(BakedModel model, Matrix4f matrix4f, ColorProvider colorProvider,
-                          int[] lightValues, TrimRenderer.TrimMode trimMode, boolean entityRendering) {
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
 
+/**
+ * A baked module model with everything needed to render it.
+ * The quad variants of the model and all of its override models are built when the holder is created,
+ * see {@link #getQuadVariants(BakedModel)}. They are derived from the model, so they are not part of {@link #equals(Object)}.
+ */
+public final class ModelHolder {
+    private final BakedModel model;
+    private final Matrix4f matrix4f;
+    private final ColorProvider colorProvider;
+    private final int[] lightValues;
+    private final TrimRenderer.TrimMode trimMode;
+    private final boolean entityRendering;
+    private final Map<BakedModel, QuadVariants> quadVariants;
+
+    public ModelHolder(BakedModel model, Matrix4f matrix4f, ColorProvider colorProvider,
+                       int[] lightValues, TrimRenderer.TrimMode trimMode, boolean entityRendering) {
+        this.model = model;
+        this.matrix4f = matrix4f;
+        this.colorProvider = colorProvider;
+        this.lightValues = lightValues;
+        this.trimMode = trimMode;
+        this.entityRendering = entityRendering;
+        this.quadVariants = compileVariants(model, trimMode, entityRendering);
+    }
+
+    public BakedModel model() {
+        return model;
+    }
+
+    public Matrix4f matrix4f() {
+        return matrix4f;
+    }
+
+    public ColorProvider colorProvider() {
+        return colorProvider;
+    }
+
+    public int[] lightValues() {
+        return lightValues;
+    }
+
+    public TrimRenderer.TrimMode trimMode() {
+        return trimMode;
+    }
+
+    public boolean entityRendering() {
+        return entityRendering;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof ModelHolder other &&
+               Objects.equals(model, other.model) &&
+               Objects.equals(matrix4f, other.matrix4f) &&
+               Objects.equals(colorProvider, other.colorProvider) &&
+               lightValues == other.lightValues &&
+               trimMode == other.trimMode &&
+               entityRendering == other.entityRendering;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(model, matrix4f, colorProvider, System.identityHashCode(lightValues), trimMode, entityRendering);
+    }
+
+    @Override
+    public String toString() {
+        return "ModelHolder[model=" + model + ", matrix4f=" + matrix4f + ", colorProvider=" + colorProvider +
+               ", trimMode=" + trimMode + ", entityRendering=" + entityRendering + "]";
+    }
+
+    /**
+     * Returns the quad variants of the model or one of its override models.
+     * Override models of unknown override lists are compiled the first time they are rendered.
+     * Only call this from the render thread.
+     */
+    public QuadVariants getQuadVariants(BakedModel bakedModel) {
+        QuadVariants variants = quadVariants.get(bakedModel);
+        if (variants == null) {
+            variants = QuadVariants.of(bakedModel, !TrimRenderer.TrimMode.NONE.equals(trimMode), entityRendering);
+            quadVariants.put(bakedModel, variants);
+        }
+        return variants;
+    }
+
+    protected static Map<BakedModel, QuadVariants> compileVariants(BakedModel model, TrimRenderer.TrimMode trimMode, boolean entityRendering) {
+        boolean rescaled = !TrimRenderer.TrimMode.NONE.equals(trimMode);
+        Map<BakedModel, QuadVariants> variants = new IdentityHashMap<>();
+        variants.put(model, QuadVariants.of(model, rescaled, entityRendering));
+        ModelOverrideList overrides = model.getOverrides();
+        if (overrides instanceof BakedSingleModelOverrides bakedOverrides) {
+            for (BakedModel overrideModel : bakedOverrides.getOverrideModels()) {
+                variants.computeIfAbsent(overrideModel, key -> QuadVariants.of(key, rescaled, entityRendering));
+            }
+        } else if (overrides instanceof DynamicBakery.DynamicOverrideList dynamicOverrides) {
+            for (DynamicBakery.DynamicOverrideList.DynamicBakedOverride override : dynamicOverrides.dynamicOverrides) {
+                if (override.model != null) {
+                    variants.computeIfAbsent(override.model, key -> QuadVariants.of(key, rescaled, entityRendering));
+                }
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * The quads of all six directions of a model, with their inverted and rescaled variants if they are used.
+     *
+     * @param quads    the quads as baked
+     * @param inverse  the quads with inverted winding, for rendering from both sides
+     * @param rescaled the quads with uvs rescaled to the whole texture, for trims
+     */
+    public record QuadVariants(BakedQuad[] quads, BakedQuad[] inverse, BakedQuad[] rescaled) {
+        protected static final BakedQuad[] EMPTY = new BakedQuad[0];
+
+        public static QuadVariants of(BakedModel model, boolean rescaled, boolean inverse) {
+            BakedQuad[] quads = ModelTransformer.getQuads(model, Random.create()).toArray(EMPTY);
+            BakedQuad[] inverseQuads = EMPTY;
+            BakedQuad[] rescaledQuads = EMPTY;
+            if (inverse) {
+                inverseQuads = new BakedQuad[quads.length];
+                for (int i = 0; i < quads.length; i++) {
+                    inverseQuads[i] = ModelTransformer.inverse(quads[i]);
+                }
+            }
+            if (rescaled) {
+                rescaledQuads = new BakedQuad[quads.length];
+                for (int i = 0; i < quads.length; i++) {
+                    rescaledQuads[i] = ModelTransformer.rescale(quads[i]);
+                }
+            }
+            return new QuadVariants(quads, inverseQuads, rescaledQuads);
+        }
+    }
 }
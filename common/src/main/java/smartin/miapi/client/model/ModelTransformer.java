@@ -4,13 +4,9 @@ import net.minecraft.client.render.model.BakedModel;
 import net.minecraft.client.render.model.BakedQuad;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.random.Random;
-import smartin.miapi.item.modular.ModularItem;
-import smartin.miapi.modules.cache.ModularItemCache;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.WeakHashMap;
 
 public class ModelTransformer {
     /*
@@ -23,65 +19,25 @@ public class ModelTransformer {
 6: Lighting value (assumed to be stored as a packed integer)
 7: Normals (assumed to be stored as a packed integer)
 */
-    private static Map<BakedModel, List<BakedQuad>> inverseMap = new WeakHashMap<>();
-    private static Map<BakedModel, List<BakedQuad>> reScaledMap = new WeakHashMap<>();
-    private static Map<BakedModel, List<BakedQuad>> inversedRescaledMap = new WeakHashMap<>();
 
-    public static void clearCaches() {
-        inverseMap.clear();
-        reScaledMap.clear();
-        inversedRescaledMap.clear();
-    }
-
-
-    public static List<BakedQuad> getInverse(BakedModel bakedModel, Random random) {
-        return inverseMap.computeIfAbsent(bakedModel, model -> {
-            List<BakedQuad> rawQuads = new ArrayList<>();
-            for (Direction direction : Direction.values()) {
-                rawQuads.addAll(model.getQuads(null, direction, random));
-            }
-            List<BakedQuad> redoneQuads = new ArrayList<>();
-            rawQuads.forEach(bakedQuad -> {
-                redoneQuads.add(new BakedQuad(inverse(bakedQuad.getVertexData()), bakedQuad.getColorIndex(), bakedQuad.getFace(), bakedQuad.getSprite(), bakedQuad.hasShade()));
-            });
-            return redoneQuads;
-        });
+    public static List<BakedQuad> getQuads(BakedModel bakedModel, Random random) {
+        List<BakedQuad> rawQuads = new ArrayList<>();
+        for (Direction direction : Direction.values()) {
+            rawQuads.addAll(bakedModel.getQuads(null, direction, random));
+        }
+        return rawQuads;
     }
 
-    public static List<BakedQuad> getRescale(BakedModel bakedModel, Random random) {
-        return reScaledMap.computeIfAbsent(bakedModel, model -> {
-            List<BakedQuad> rawQuads = new ArrayList<>();
-            for (Direction direction : Direction.values()) {
-                rawQuads.addAll(model.getQuads(null, direction, random));
-            }
-            List<BakedQuad> redoneQuads = new ArrayList<>();
-            rawQuads.forEach(bakedQuad -> {
-                float uStart = bakedQuad.getSprite().getMinU();
-                float uScale = 1 / (bakedQuad.getSprite().getMaxU() - bakedQuad.getSprite().getMinU());
-                float vStart = bakedQuad.getSprite().getMinV();
-                float vScale = 1 / (bakedQuad.getSprite().getMaxV() - bakedQuad.getSprite().getMinV());
-                redoneQuads.add(new BakedQuad(rescale(bakedQuad.getVertexData(), uStart, uScale, vStart, vScale), bakedQuad.getColorIndex(), bakedQuad.getFace(), bakedQuad.getSprite(), bakedQuad.hasShade()));
-            });
-            return redoneQuads;
-        });
+    public static BakedQuad inverse(BakedQuad bakedQuad) {
+        return new BakedQuad(inverse(bakedQuad.getVertexData()), bakedQuad.getColorIndex(), bakedQuad.getFace(), bakedQuad.getSprite(), bakedQuad.hasShade());
     }
 
-    public static List<BakedQuad> getRescaleInverse(BakedModel bakedModel, Random random) {
-        return inversedRescaledMap.computeIfAbsent(bakedModel, model -> {
-            List<BakedQuad> rawQuads = new ArrayList<>();
-            for (Direction direction : Direction.values()) {
-                rawQuads.addAll(model.getQuads(null, direction, random));
-            }
-            List<BakedQuad> redoneQuads = new ArrayList<>();
-            rawQuads.forEach(bakedQuad -> {
-                float uStart = bakedQuad.getSprite().getMinU();
-                float uScale = 1 / (bakedQuad.getSprite().getMaxU() - bakedQuad.getSprite().getMinU());
-                float vStart = bakedQuad.getSprite().getMinV();
-                float vScale = 1 / (bakedQuad.getSprite().getMaxV() - bakedQuad.getSprite().getMinV());
-                redoneQuads.add(new BakedQuad(inverse(rescale(bakedQuad.getVertexData(), uStart, uScale, vStart, vScale)), bakedQuad.getColorIndex(), bakedQuad.getFace(), bakedQuad.getSprite(), bakedQuad.hasShade()));
-            });
-            return redoneQuads;
-        });
+    public static BakedQuad rescale(BakedQuad bakedQuad) {
+        float uStart = bakedQuad.getSprite().getMinU();
+        float uScale = 1 / (bakedQuad.getSprite().getMaxU() - bakedQuad.getSprite().getMinU());
+        float vStart = bakedQuad.getSprite().getMinV();
+        float vScale = 1 / (bakedQuad.getSprite().getMaxV() - bakedQuad.getSprite().getMinV());
+        return new BakedQuad(rescale(bakedQuad.getVertexData(), uStart, uScale, vStart, vScale), bakedQuad.getColorIndex(), bakedQuad.getFace(), bakedQuad.getSprite(), bakedQuad.hasShade());
     }
 
     private static int[] rescale(int[] raw, float uStart, float uScale, float vStart, float vScale) {
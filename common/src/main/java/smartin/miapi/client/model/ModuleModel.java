@@ -43,6 +43,30 @@ public class ModuleModel {
         return modelList;
     }
 
+    /**
+     * @param modelTypeRaw the model type, null for the default item model
+     * @return true if this model and all its sub-models were rendered before and are {@link MiapiModel#isStatic()}
+     */
+    public boolean isStatic(String modelTypeRaw) {
+        String modelType = modelTypeRaw == null ? "item" : modelTypeRaw;
+        List<Pair<Matrix4f, MiapiModel>> modelList = otherModels.get(modelType);
+        if (modelList == null) {
+            return false;
+        }
+        for (Pair<Matrix4f, MiapiModel> pair : modelList) {
+            if (!pair.getSecond().isStatic()) {
+                return false;
+            }
+        }
+        for (Integer id : instance.subModules.keySet()) {
+            ModuleModel subModuleModel = subModuleModels.get(id);
+            if (subModuleModel == null || !subModuleModel.isStatic(modelType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public void render(String modelTypeRaw, ItemStack stack, MatrixStack matrices, ModelTransformationMode mode, float tickDelta, VertexConsumerProvider vertexConsumers, LivingEntity entity, int light, int overlay) {
         String modelType = modelTypeRaw == null ? "item" : modelTypeRaw;
         if (!otherModels.containsKey(modelType)) {
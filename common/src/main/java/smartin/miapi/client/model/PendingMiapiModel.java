@@ -0,0 +1,64 @@
+package smartin.miapi.client.model;
+
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.render.model.json.ModelTransformationMode;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix4f;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Stands in for a model that is still baked in the background, see {@link DynamicBakery#bakeModelAsync}.
+ * Renders nothing until the bake is done, then renders the model created from the result.
+ *
+ * @param <T> the result of the bake
+ */
+public class PendingMiapiModel<T> implements MiapiModel {
+    protected final CompletableFuture<T> bake;
+    protected final Function<T, MiapiModel> modelFactory;
+    protected boolean resolved = false;
+    @Nullable
+    protected MiapiModel delegate;
+
+    /**
+     * @param bake         the running bake
+     * @param modelFactory creates the model on the render thread once the bake is done, may return null
+     */
+    public PendingMiapiModel(CompletableFuture<T> bake, Function<T, MiapiModel> modelFactory) {
+        this.bake = bake;
+        this.modelFactory = modelFactory;
+    }
+
+    @Nullable
+    protected MiapiModel getDelegate() {
+        if (!resolved && bake.isDone()) {
+            resolved = true;
+            delegate = modelFactory.apply(bake.getNow(null));
+        }
+        return delegate;
+    }
+
+    @Override
+    public void render(MatrixStack matrices, ItemStack stack, ModelTransformationMode transformationMode, float tickDelta, VertexConsumerProvider vertexConsumers, LivingEntity entity, int light, int overlay) {
+        MiapiModel model = getDelegate();
+        if (model != null) {
+            model.render(matrices, stack, transformationMode, tickDelta, vertexConsumers, entity, light, overlay);
+        }
+    }
+
+    @Override
+    public Matrix4f subModuleMatrix() {
+        MiapiModel model = getDelegate();
+        return model != null ? model.subModuleMatrix() : new Matrix4f();
+    }
+
+    @Override
+    public boolean isStatic() {
+        MiapiModel model = getDelegate();
+        return resolved && (model == null || model.isStatic());
+    }
+}
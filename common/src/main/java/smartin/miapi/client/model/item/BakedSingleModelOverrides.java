@@ -50,6 +50,19 @@ public class BakedSingleModelOverrides extends ModelOverrideList {
     }
 
 
+    /**
+     * @return all models this list can resolve to
+     */
+    public List<BakedModel> getOverrideModels() {
+        List<BakedModel> models = new ArrayList<>(dynamicOverrides.length);
+        for (DynamicBakedOverride override : dynamicOverrides) {
+            if (override.model != null) {
+                models.add(override.model);
+            }
+        }
+        return models;
+    }
+
     @Override
     public BakedModel apply(BakedModel model, ItemStack stack, @Nullable ClientWorld world, @Nullable LivingEntity entity, int seed) {
         if (this.dynamicOverrides.length != 0) {
@@ -0,0 +1,215 @@
+package smartin.miapi.client.renderer;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.systems.VertexSorter;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gl.Framebuffer;
+import net.minecraft.client.gl.SimpleFramebuffer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.render.*;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix4f;
+import org.lwjgl.opengl.GL11;
+import smartin.miapi.client.MiapiClient;
+import smartin.miapi.client.atlas.MaterialSpriteManager;
+import smartin.miapi.client.model.DynamicBakery;
+import smartin.miapi.client.model.MiapiItemModel;
+import smartin.miapi.config.MiapiConfig;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Renders the gui icons of static modular items once into an offscreen framebuffer and draws them from there,
+ * so slots full of modular items cost about as much as vanilla item icons.
+ * Each icon is stored on its {@link MiapiItemModel}, so it is rebuilt whenever the item cache drops the model
+ * and the cache never keeps a model alive. The framebuffer slots themselves are reused in least recently drawn order.
+ * Items with a glint, animated materials or models that are not static are always rendered normally.
+ * Only access this from the render thread.
+ */
+public class GuiIconCache {
+    public static final int SIZE = 1024;
+
+    @Nullable
+    protected static Framebuffer framebuffer;
+    protected static final Map<Integer, Icon> icons = new LinkedHashMap<>(64, 0.75f, true);
+    protected static final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    protected static int slotSize = 0;
+    protected static int slotsPerRow = 0;
+    protected static int generation = 0;
+    protected static boolean rendering = false;
+    protected static final BufferBuilder buffer = new BufferBuilder(256);
+    protected static final VertexConsumerProvider.Immediate immediate = VertexConsumerProvider.immediate(buffer);
+
+    /**
+     * Draws the cached icon of the stack.
+     *
+     * @return false if the stack has to be rendered normally
+     */
+    public static boolean draw(DrawContext context, ItemStack stack, int x, int y, int z) {
+        if (!MiapiConfig.INSTANCE.client.other.cacheGuiIcons || rendering || MiapiClient.shaderModLoaded || stack.hasGlint()) {
+            return false;
+        }
+        MiapiItemModel model = MiapiItemModel.getItemModel(stack);
+        if (model == null || !model.rootModel.isStatic(null)) {
+            return false;
+        }
+        int size = 16 * (int) Math.ceil(MinecraftClient.getInstance().getWindow().getScaleFactor());
+        if (size > SIZE) {
+            return false;
+        }
+        if (size != slotSize) {
+            resize(size);
+        }
+        Icon icon = model.guiIcon;
+        if (icon != null && icon.generation != generation) {
+            icon = null;
+        }
+        if (icon != null && icon.uncacheable) {
+            return false;
+        }
+        if (icon == null || icon.slot < 0) {
+            icon = new Icon(nextSlot(), generation);
+            icons.put(icon.slot, icon);
+            model.guiIcon = icon;
+        } else {
+            icons.get(icon.slot);
+        }
+        int slot = icon.slot;
+        if (!icon.valid) {
+            //everything drawn so far has to reach the screen before the framebuffer changes
+            context.draw();
+            int placeholders = MaterialSpriteManager.getPlaceholdersServed();
+            int animated = MaterialSpriteManager.getAnimatedServed();
+            renderIcon(stack, slot);
+            if (animated != MaterialSpriteManager.getAnimatedServed()) {
+                icon.uncacheable = true;
+                icon.slot = -1;
+                icons.remove(slot);
+                freeSlots.add(slot);
+            } else {
+                icon.valid = placeholders == MaterialSpriteManager.getPlaceholdersServed() && DynamicBakery.getPendingBakes() == 0;
+            }
+        }
+        drawSlot(context, slot, x, y, z);
+        return true;
+    }
+
+    public static void clear() {
+        generation++;
+        icons.clear();
+        freeSlots.clear();
+        for (int i = 0; i < slotsPerRow * slotsPerRow; i++) {
+            freeSlots.add(i);
+        }
+    }
+
+    protected static void resize(int size) {
+        slotSize = size;
+        slotsPerRow = SIZE / size;
+        clear();
+    }
+
+    protected static int nextSlot() {
+        Iterator<Icon> eldest = icons.values().iterator();
+        while (freeSlots.isEmpty() && eldest.hasNext()) {
+            Icon evicted = eldest.next();
+            eldest.remove();
+            freeSlots.add(evicted.slot);
+            evicted.slot = -1;
+        }
+        return freeSlots.poll();
+    }
+
+    protected static Framebuffer getFramebuffer() {
+        if (framebuffer == null) {
+            framebuffer = new SimpleFramebuffer(SIZE, SIZE, true, MinecraftClient.IS_SYSTEM_MAC);
+            framebuffer.setClearColor(0, 0, 0, 0);
+        }
+        return framebuffer;
+    }
+
+    protected static void renderIcon(ItemStack stack, int slot) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        Framebuffer target = getFramebuffer();
+        int slotX = slot % slotsPerRow * slotSize;
+        int slotY = slot / slotsPerRow * slotSize;
+
+        Matrix4f projection = RenderSystem.getProjectionMatrix();
+        VertexSorter sorter = RenderSystem.getVertexSorting();
+        MatrixStack modelView = RenderSystem.getModelViewStack();
+        //the enclosing DrawContext may be clipping a scrolled list, its scissor has to survive the icon
+        boolean scissored = GL11.glIsEnabled(GL11.GL_SCISSOR_TEST);
+        int[] scissor = new int[4];
+        GL11.glGetIntegerv(GL11.GL_SCISSOR_BOX, scissor);
+        target.beginWrite(false);
+        RenderSystem.viewport(slotX, slotY, slotSize, slotSize);
+        RenderSystem.enableScissor(slotX, slotY, slotSize, slotSize);
+        RenderSystem.clearColor(0, 0, 0, 0);
+        RenderSystem.clear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT, MinecraftClient.IS_SYSTEM_MAC);
+        RenderSystem.setProjectionMatrix(new Matrix4f().setOrtho(0, 16, 16, 0, 1000, 21000), VertexSorter.BY_Z);
+        modelView.push();
+        modelView.loadIdentity();
+        modelView.translate(0, 0, -11000);
+        RenderSystem.applyModelViewMatrix();
+        rendering = true;
+        try {
+            DrawContext iconContext = new DrawContext(client, immediate);
+            iconContext.drawItem(stack, 0, 0);
+            iconContext.draw();
+        } finally {
+            rendering = false;
+            modelView.pop();
+            RenderSystem.applyModelViewMatrix();
+            RenderSystem.setProjectionMatrix(projection, sorter);
+            client.getFramebuffer().beginWrite(true);
+            if (scissored) {
+                RenderSystem.enableScissor(scissor[0], scissor[1], scissor[2], scissor[3]);
+            } else {
+                RenderSystem.disableScissor();
+            }
+        }
+    }
+
+    protected static void drawSlot(DrawContext context, int slot, int x, int y, int z) {
+        float minU = (float) (slot % slotsPerRow * slotSize) / SIZE;
+        float maxU = minU + (float) slotSize / SIZE;
+        //framebuffers start at the bottom, so the top of the icon is at the higher v
+        float minV = (float) (slot / slotsPerRow * slotSize) / SIZE;
+        float maxV = minV + (float) slotSize / SIZE;
+        Matrix4f matrix = context.getMatrices().peek().getPositionMatrix();
+        float depth = 150 + z;
+
+        RenderSystem.setShaderTexture(0, getFramebuffer().getColorAttachment());
+        RenderSystem.setShader(GameRenderer::getPositionTexProgram);
+        RenderSystem.enableBlend();
+        //the icon was blended onto a transparent background, so its colors are premultiplied
+        RenderSystem.blendFunc(GlStateManager.SrcFactor.ONE, GlStateManager.DstFactor.ONE_MINUS_SRC_ALPHA);
+        BufferBuilder bufferBuilder = Tessellator.getInstance().getBuffer();
+        bufferBuilder.begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
+        bufferBuilder.vertex(matrix, x, y, depth).texture(minU, maxV).next();
+        bufferBuilder.vertex(matrix, x, y + 16, depth).texture(minU, minV).next();
+        bufferBuilder.vertex(matrix, x + 16, y + 16, depth).texture(maxU, minV).next();
+        bufferBuilder.vertex(matrix, x + 16, y, depth).texture(maxU, maxV).next();
+        BufferRenderer.drawWithGlobalProgram(bufferBuilder.end());
+        RenderSystem.defaultBlendFunc();
+        RenderSystem.disableBlend();
+    }
+
+    public static class Icon {
+        protected int slot;
+        protected final int generation;
+        protected boolean valid = false;
+        protected boolean uncacheable = false;
+
+        protected Icon(int slot, int generation) {
+            this.slot = slot;
+            this.generation = generation;
+        }
+    }
+}
@@ -9,6 +9,10 @@ public class RescaledVertexConsumer implements VertexConsumer {
     float uScale;
     float vStart;
     float vScale;
+    float targetUStart = 0;
+    float targetUSize = 1;
+    float targetVStart = 0;
+    float targetVSize = 1;
 
     public RescaledVertexConsumer(VertexConsumer delegate, Sprite sprite) {
         this.delegate = delegate;
@@ -22,10 +26,20 @@ public class RescaledVertexConsumer implements VertexConsumer {
         vScale = 1 / (sprite.getMaxV() - sprite.getMinV());
     }
 
+    /**
+     * Sets the uv region the sprite is mapped onto, by default the whole texture.
+     */
+    public void setTarget(float minU, float minV, float maxU, float maxV) {
+        targetUStart = minU;
+        targetUSize = maxU - minU;
+        targetVStart = minV;
+        targetVSize = maxV - minV;
+    }
+
     @Override
     public void vertex(float x, float y, float z, float red, float green, float blue, float alpha, float u, float v, int overlay, int light, float normalX, float normalY, float normalZ) {
-        u = ((u - uStart) * uScale);
-        v = ((v - vStart) * vScale);
+        u = targetUStart + ((u - uStart) * uScale) * targetUSize;
+        v = targetVStart + ((v - vStart) * vScale) * targetVSize;
         this.vertex(x, y, z);
         this.color(red, green, blue, alpha);
         this.texture(u, v);
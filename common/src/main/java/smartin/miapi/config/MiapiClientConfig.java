@@ -44,6 +44,18 @@ public class MiapiClientConfig {
         @Comment("Speed of Color Change on enchanting Glint")
         @AutoCodec.Name("enchanting_glint_speed")
         public float enchantingGlintSpeed = 1.0f;
+
+        @Comment("Whether the geometry of modular items without animated parts is recorded once and replayed instead of rebuilt every frame")
+        @AutoCodec.Name("capture_static_models")
+        public boolean captureStaticModels = false;
+
+        @Comment("How many animated material textures are updated per tick at most, only materials drawn in the last second are updated")
+        @AutoCodec.Name("animated_material_uploads")
+        public int animatedMaterialUploads = 32;
+
+        @Comment("Whether the gui icons of modular items without animated parts are rendered once and reused")
+        @AutoCodec.Name("cache_gui_icons")
+        public boolean cacheGuiIcons = false;
     }
 
     @ConfigAutoCodec.ConfigClassMarker
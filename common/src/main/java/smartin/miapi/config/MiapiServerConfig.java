@@ -65,6 +65,12 @@ public class MiapiServerConfig {
                 """)
         @AutoCodec.Name("reload_on_server_start")
         public boolean doubleReload = true;
+
+        @Comment("""
+                How many blocks area and vein mining may break per server tick, shared by all players
+                Shapes with more blocks are mined over several ticks""")
+        @AutoCodec.Name("area_mining_blocks_per_tick")
+        public int areaMiningBlocksPerTick = 128;
     }
 
     @ConfigAutoCodec.ConfigClassMarker
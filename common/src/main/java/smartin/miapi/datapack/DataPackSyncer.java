@@ -0,0 +1,300 @@
+package smartin.miapi.datapack;
+
+import dev.architectury.platform.Platform;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Util;
+import smartin.miapi.Environment;
+import smartin.miapi.Miapi;
+import smartin.miapi.modules.cache.NbtContentHash;
+import smartin.miapi.network.Networking;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.*;
+
+/**
+ * Syncs {@link ReloadEvents#DATA_PACKS} to the client as a delta.
+ * <ol>
+ *     <li>The server sends a manifest of every path and the hash of its content.</li>
+ *     <li>The client compares it with the entries of its last sync, kept on disk, and requests the paths it is missing.</li>
+ *     <li>The server sends only the requested entries, deflate compressed.</li>
+ * </ol>
+ * The client then persists the synced set so the next join only transfers changed entries.
+ * Every manifest carries a sequence id that is echoed by the request and the delta,
+ * so a delta for an older manifest, for example after a reload right after joining, is discarded.
+ */
+public class DataPackSyncer implements ReloadEvents.DataSyncer {
+    public static final String ID = "data_packs";
+    protected static final String REQUEST_PACKET_ID = Miapi.MOD_ID + ":data_pack_delta_c2s";
+    protected static final String DELTA_PACKET_ID = Miapi.MOD_ID + ":data_pack_delta_s2c";
+    protected static final int CACHE_VERSION = 1;
+
+    /**
+     * Server side hashes of the current {@link ReloadEvents#DATA_PACKS}, rebuilt once per data pack change.
+     */
+    protected volatile Map<String, Long> serverHashes = null;
+    protected final AtomicInteger nextSequence = new AtomicInteger();
+    /**
+     * Client side path to content of the last synced data packs.
+     */
+    protected Map<String, CachedEntry> clientCache = null;
+    /**
+     * The manifest the client is currently waiting on a delta for.
+     */
+    protected Map<String, Long> pendingManifest = null;
+    protected int pendingSequence = -1;
+
+    public DataPackSyncer() {
+        ReloadEvents.DataPackLoader.subscribe(dataPack -> serverHashes = null);
+        Networking.registerC2SPacket(REQUEST_PACKET_ID, this::sendDelta);
+        if (Environment.isClient()) {
+            Networking.registerS2CPacket(DELTA_PACKET_ID, this::receiveDelta);
+        }
+    }
+
+    public static long hash(String data) {
+        return NbtContentHash.hashString(data, NbtContentHash.SEED_HIGH);
+    }
+
+    protected Map<String, Long> getServerHashes() {
+        Map<String, Long> hashes = serverHashes;
+        if (hashes == null) {
+            hashes = new LinkedHashMap<>();
+            synchronized (ReloadEvents.DATA_PACKS) {
+                for (Map.Entry<String, String> entry : ReloadEvents.DATA_PACKS.entrySet()) {
+                    hashes.put(entry.getKey(), hash(entry.getValue()));
+                }
+            }
+            serverHashes = hashes;
+        }
+        return hashes;
+    }
+
+    @Override
+    public PacketByteBuf createDataServer() {
+        Map<String, Long> hashes = getServerHashes();
+        PacketByteBuf buf = Networking.createBuffer();
+        buf.writeVarInt(nextSequence.getAndIncrement() & Integer.MAX_VALUE);
+        buf.writeInt(hashes.size());
+        hashes.forEach((path, hash) -> {
+            buf.writeString(path);
+            buf.writeLong(hash);
+        });
+        return buf;
+    }
+
+    @Override
+    public void interpretDataClient(PacketByteBuf buffer) {
+        int sequence = buffer.readVarInt();
+        int size = buffer.readInt();
+        Map<String, Long> manifest = new LinkedHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            manifest.put(buffer.readString(), buffer.readLong());
+        }
+        Map<String, CachedEntry> cache = getClientCache();
+        List<String> missing = new ArrayList<>();
+        manifest.forEach((path, hash) -> {
+            CachedEntry entry = cache.get(path);
+            if (entry == null || entry.hash() != hash) {
+                missing.add(path);
+            }
+        });
+        synchronized (this) {
+            pendingManifest = manifest;
+            pendingSequence = sequence;
+        }
+        PacketByteBuf request = Networking.createBuffer();
+        request.writeVarInt(sequence);
+        request.writeInt(missing.size());
+        missing.forEach(request::writeString);
+        Networking.sendC2S(REQUEST_PACKET_ID, request);
+        Miapi.LOGGER.info("Requesting " + missing.size() + " of " + manifest.size() + " data pack entries from the server");
+    }
+
+    @Override
+    public boolean isCompleteOnReceive() {
+        return false;
+    }
+
+    protected void sendDelta(PacketByteBuf request, ServerPlayerEntity player) {
+        int sequence = request.readVarInt();
+        int size = request.readInt();
+        PacketByteBuf raw = Networking.createBuffer();
+        List<String> found = new ArrayList<>(size);
+        List<String> data = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String path = request.readString();
+            String content = ReloadEvents.DATA_PACKS.get(path);
+            if (content != null) {
+                found.add(path);
+                data.add(content);
+            }
+        }
+        raw.writeInt(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            raw.writeString(found.get(i));
+            raw.writeString(data.get(i), Integer.MAX_VALUE);
+        }
+        byte[] bytes = new byte[raw.readableBytes()];
+        raw.readBytes(bytes);
+        PacketByteBuf buf = Networking.createBuffer();
+        buf.writeVarInt(sequence);
+        buf.writeVarInt(bytes.length);
+        buf.writeByteArray(compress(bytes));
+        Networking.sendS2C(DELTA_PACKET_ID, player, buf);
+    }
+
+    protected void receiveDelta(PacketByteBuf buffer) {
+        int sequence = buffer.readVarInt();
+        Map<String, Long> manifest;
+        synchronized (this) {
+            if (pendingManifest != null && sequence != pendingSequence) {
+                Miapi.LOGGER.info("Discarding data pack delta for an outdated manifest");
+                return;
+            }
+            manifest = pendingManifest;
+            pendingManifest = null;
+        }
+        if (manifest == null) {
+            Miapi.LOGGER.warn("Received data pack delta without a manifest, ignoring it");
+            return;
+        }
+        int length = buffer.readVarInt();
+        PacketByteBuf raw = Networking.createBuffer();
+        raw.writeBytes(decompress(buffer.readByteArray(), length));
+        int size = raw.readInt();
+        Map<String, String> received = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            String path = raw.readString();
+            received.put(path, raw.readString(Integer.MAX_VALUE));
+        }
+
+        Map<String, CachedEntry> cache = getClientCache();
+        Map<String, CachedEntry> synced = new LinkedHashMap<>(manifest.size());
+        Map<String, String> tempDataPack = new LinkedHashMap<>(manifest.size());
+        manifest.forEach((path, hash) -> {
+            String content = received.get(path);
+            if (content == null) {
+                CachedEntry entry = cache.get(path);
+                content = entry != null && entry.hash() == hash ? entry.data() : null;
+            }
+            if (content != null) {
+                tempDataPack.put(path, content);
+                synced.put(path, new CachedEntry(hash, content));
+            } else {
+                Miapi.LOGGER.warn("Data pack entry " + path + " was neither cached nor sent by the server");
+            }
+        });
+        synchronized (this) {
+            clientCache = synced;
+        }
+        Util.getIoWorkerExecutor().execute(() -> writeCache(synced));
+        MinecraftClient.getInstance().execute(() -> ReloadEvents.DataPackLoader.trigger(tempDataPack));
+        ReloadEvents.onSyncerReceived(ID);
+    }
+
+    protected synchronized Map<String, CachedEntry> getClientCache() {
+        if (clientCache == null) {
+            clientCache = readCache();
+        }
+        return clientCache;
+    }
+
+    protected static Path getCachePath() {
+        return Platform.getGameFolder().resolve(Miapi.MOD_ID).resolve("synced_data_packs.bin");
+    }
+
+    protected static Map<String, CachedEntry> readCache() {
+        Map<String, CachedEntry> cache = new HashMap<>();
+        Path path = getCachePath();
+        if (!Files.exists(path)) {
+            return cache;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != CACHE_VERSION) {
+                return cache;
+            }
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String entryPath = in.readUTF();
+                long hash = in.readLong();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                String data = new String(bytes, StandardCharsets.UTF_8);
+                if (hash(data) == hash) {
+                    cache.put(entryPath, new CachedEntry(hash, data));
+                }
+            }
+        } catch (IOException e) {
+            Miapi.LOGGER.warn("Could not read the synced data pack cache, requesting everything from the server", e);
+            cache.clear();
+        }
+        return cache;
+    }
+
+    protected static void writeCache(Map<String, CachedEntry> cache) {
+        Path path = getCachePath();
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path))))) {
+                out.writeInt(CACHE_VERSION);
+                out.writeInt(cache.size());
+                for (Map.Entry<String, CachedEntry> entry : cache.entrySet()) {
+                    byte[] bytes = entry.getValue().data().getBytes(StandardCharsets.UTF_8);
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().hash());
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            Miapi.LOGGER.warn("Could not write the synced data pack cache", e);
+        }
+    }
+
+    protected static byte[] compress(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(bytes);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    protected static byte[] decompress(byte[] bytes, int length) {
+        Inflater inflater = new Inflater();
+        inflater.setInput(bytes);
+        byte[] result = new byte[length];
+        try {
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int inflated = inflater.inflate(result, read, length - read);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Data pack delta ended after " + read + " of " + length + " bytes");
+                }
+                read += inflated;
+            }
+            if (read != length) {
+                throw new DataFormatException("Data pack delta has " + read + " instead of " + length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted data pack delta", e);
+        } finally {
+            inflater.end();
+        }
+        return result;
+    }
+
+    protected record CachedEntry(long hash, String data) {
+    }
+}
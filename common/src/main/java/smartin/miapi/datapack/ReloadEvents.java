@@ -1,5 +1,7 @@
 package smartin.miapi.datapack;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import dev.architectury.event.events.common.PlayerEvent;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.network.PacketByteBuf;
@@ -11,6 +13,9 @@ import smartin.miapi.network.Networking;
 import smartin.miapi.registries.MiapiRegistry;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * A utility class that handles event-based reloading of data packs and caches.
@@ -39,6 +44,26 @@ public class ReloadEvents {
      */
     public static Map<String, List<String>> syncedPaths = new HashMap<>();
 
+    /**
+     * A bounded pool the JSON of data pack folders is parsed on during a reload.
+     */
+    public static final ForkJoinPool RELOAD_POOL = new ForkJoinPool(Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4)));
+
+    /**
+     * The paths of {@link #DATA_PACKS}, grouped by their top level folder. Rebuilt once whenever the data packs change.
+     */
+    private static volatile Map<String, List<String>> dataPackIndex = null;
+
+    /**
+     * Locations whose JSON gets parsed in parallel as soon as the data packs are known.
+     */
+    private static final Set<String> jsonLocations = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The running or finished parse tasks of the {@link #jsonLocations} for the current data packs.
+     */
+    private static final Map<String, ForkJoinTask<Map<String, JsonElement>>> parsedLocations = new ConcurrentHashMap<>();
+
     /**
      * Registers the path of a data pack to be synced.
      *
@@ -88,37 +113,7 @@ public class ReloadEvents {
             }
         }));
 
-        dataSyncerRegistry.register("data_packs", new DataSyncer() {
-            @Override
-            public PacketByteBuf createDataServer() {
-                PacketByteBuf buf = Networking.createBuffer();
-                buf.writeInt(DATA_PACKS.size());
-                for (String key : DATA_PACKS.keySet()) {
-                    buf.writeString(key);
-                    buf.writeString(DATA_PACKS.get(key));
-                }
-                return buf;
-            }
-
-            @Override
-            public void interpretDataClient(PacketByteBuf buffer) {
-                int dataPackSize = buffer.readInt();
-                Map<String, String> tempDataPack = new HashMap<>(dataPackSize);
-                for (int i = 0; i < dataPackSize; i++) {
-                    String key = buffer.readString();
-                    String value = buffer.readString();
-                    tempDataPack.put(key, value);
-                }
-                MinecraftClient.getInstance().execute(() -> {
-                    synchronized (DATA_PACKS) {
-                        DATA_PACKS.clear();
-                        DATA_PACKS.putAll(tempDataPack);
-                    }
-                    DataPackLoader.trigger(tempDataPack);
-                    tempDataPack.clear();
-                });
-            }
-        });
+        dataSyncerRegistry.register(DataPackSyncer.ID, new DataPackSyncer());
 
         //scedule join?
         PlayerEvent.PLAYER_JOIN.register((ReloadEvents::triggerReloadOnClient));
@@ -135,7 +130,11 @@ public class ReloadEvents {
             synchronized (DATA_PACKS) {
                 DATA_PACKS.clear();
                 DATA_PACKS.putAll(dataPack);
+                dataPackIndex = null;
             }
+            parsedLocations.values().forEach(task -> task.cancel(false));
+            parsedLocations.clear();
+            jsonLocations.forEach(location -> parsedLocations.put(location, RELOAD_POOL.submit(() -> parseLocation(location))));
         }));
 
     }
@@ -154,6 +153,82 @@ public class ReloadEvents {
         });
     }
 
+    /**
+     * Returns all data pack paths inside the given location, in data pack order.
+     *
+     * @param location the folder, for example "modules" or "skins/module"
+     * @return the matching paths
+     */
+    public static List<String> getDataPackPaths(String location) {
+        Map<String, List<String>> index = dataPackIndex;
+        if (index == null) {
+            index = new HashMap<>();
+            synchronized (DATA_PACKS) {
+                for (String path : DATA_PACKS.keySet()) {
+                    index.computeIfAbsent(getTopLevelFolder(path), k -> new ArrayList<>()).add(path);
+                }
+                dataPackIndex = index;
+            }
+        }
+        String prefix = location + "/";
+        List<String> folder = index.getOrDefault(getTopLevelFolder(prefix), Collections.emptyList());
+        return folder.stream().filter(path -> path.startsWith(prefix)).toList();
+    }
+
+    private static String getTopLevelFolder(String path) {
+        int index = path.indexOf('/');
+        return index < 0 ? path : path.substring(0, index);
+    }
+
+    /**
+     * Registers a location whose JSON files are parsed on {@link #RELOAD_POOL} as soon as the data packs are loaded,
+     * independent of the priority of the handler that consumes them.
+     *
+     * @param location the folder to pre-parse
+     */
+    public static void registerJsonLocation(String location) {
+        jsonLocations.add(location);
+    }
+
+    /**
+     * Returns the parsed JSON of all files inside the location, in data pack order.
+     * Files that fail to parse are logged and skipped.
+     * If the location was registered through {@link #registerJsonLocation(String)} this waits for the background parse.
+     *
+     * @param location the folder
+     * @return path to parsed JSON
+     */
+    public static Map<String, JsonElement> getParsedJson(String location) {
+        ForkJoinTask<Map<String, JsonElement>> task = parsedLocations.get(location);
+        if (task != null) {
+            try {
+                return task.join();
+            } catch (Exception e) {
+                Miapi.LOGGER.warn("parallel parse of " + location + " failed, parsing on the current thread", e);
+            }
+        }
+        return parseLocation(location);
+    }
+
+    private static Map<String, JsonElement> parseLocation(String location) {
+        List<String> paths = getDataPackPaths(location);
+        List<JsonElement> parsed = paths.parallelStream().map(path -> {
+            try {
+                return JsonParser.parseString(DATA_PACKS.get(path));
+            } catch (Exception e) {
+                Miapi.LOGGER.warn("could not load " + path, e);
+                return null;
+            }
+        }).toList();
+        Map<String, JsonElement> result = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            if (parsed.get(i) != null) {
+                result.put(paths.get(i), parsed.get(i));
+            }
+        }
+        return result;
+    }
+
     /**
      * returns true if a reload is ongoing
      */
@@ -169,22 +244,34 @@ public class ReloadEvents {
                 clientReloadTimeStart = System.nanoTime();
             }
             String receivedID = buffer.readString();
-            receivedSyncer.add(receivedID);
-            dataSyncerRegistry.get(receivedID).interpretDataClient(buffer);
-            if (receivedSyncer.size() == dataSyncerRegistry.getFlatMap().keySet().size()) {
-                receivedSyncer.clear();
-                MinecraftClient.getInstance().execute(() -> {
-                    reloadCounter++;
-                    ReloadEvents.START.fireEvent(true);
-                    ReloadEvents.MAIN.fireEvent(true);
-                    ReloadEvents.END.fireEvent(true);
-                    reloadCounter--;
-                    Miapi.LOGGER.info("Client load took " + (double) (System.nanoTime() - clientReloadTimeStart) / 1000 / 1000 + " ms");
-                });
+            DataSyncer syncer = dataSyncerRegistry.get(receivedID);
+            syncer.interpretDataClient(buffer);
+            if (syncer.isCompleteOnReceive()) {
+                onSyncerReceived(receivedID);
             }
         });
     }
 
+    /**
+     * Marks the data of a {@link DataSyncer} as fully received on the client. Once all syncers are received the client reload starts.
+     *
+     * @param receivedID the id of the syncer
+     */
+    public static synchronized void onSyncerReceived(String receivedID) {
+        receivedSyncer.add(receivedID);
+        if (receivedSyncer.size() == dataSyncerRegistry.getFlatMap().keySet().size()) {
+            receivedSyncer.clear();
+            MinecraftClient.getInstance().execute(() -> {
+                reloadCounter++;
+                ReloadEvents.START.fireEvent(true);
+                ReloadEvents.MAIN.fireEvent(true);
+                ReloadEvents.END.fireEvent(true);
+                reloadCounter--;
+                Miapi.LOGGER.info("Client load took " + (double) (System.nanoTime() - clientReloadTimeStart) / 1000 / 1000 + " ms");
+            });
+        }
+    }
+
 
     /**
      * An interface for listening to reload events. Implementations of this interface can subscribe to reload events
@@ -209,6 +296,10 @@ public class ReloadEvents {
      */
     public static class ReloadEvent {
         private final Map<EventListener, Float> mainListeners = new HashMap<>();
+        /**
+         * The listeners sorted by priority, rebuilt only after (un)subscribing.
+         */
+        private List<EventListener> sortedListeners = null;
 
         /**
          * Subscribes the given listener to this reload event, with the given priority. Listeners with lower priorities will
@@ -217,8 +308,9 @@ public class ReloadEvents {
          * @param listener the listener to subscribe
          * @param priority the priority of the listener
          */
-        public void subscribe(EventListener listener, float priority) {
+        public synchronized void subscribe(EventListener listener, float priority) {
             mainListeners.put(listener, priority);
+            sortedListeners = null;
         }
 
         /**
@@ -236,8 +328,9 @@ public class ReloadEvents {
          *
          * @param listener the listener to unsubscribe
          */
-        public void unsubscribe(EventListener listener) {
+        public synchronized void unsubscribe(EventListener listener) {
             mainListeners.remove(listener);
+            sortedListeners = null;
         }
 
         /**
@@ -248,14 +341,23 @@ public class ReloadEvents {
          * @param isClient a boolean indicating whether the event is occurring on the client side (true) or the server side (false)
          */
         public void fireEvent(boolean isClient) {
-            mainListeners.entrySet().stream()
-                    .sorted(Map.Entry.comparingByValue()).forEach(eventListenerFloatEntry -> {
-                        try {
-                            eventListenerFloatEntry.getKey().onEvent(isClient);
-                        } catch (Exception e) {
-                            Miapi.LOGGER.error("Exception during reload", e);
-                        }
-                    });
+            for (EventListener listener : getSortedListeners()) {
+                try {
+                    listener.onEvent(isClient);
+                } catch (Exception e) {
+                    Miapi.LOGGER.error("Exception during reload", e);
+                }
+            }
+        }
+
+        private synchronized List<EventListener> getSortedListeners() {
+            if (sortedListeners == null) {
+                sortedListeners = mainListeners.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue())
+                        .map(Map.Entry::getKey)
+                        .toList();
+            }
+            return sortedListeners;
         }
     }
 
@@ -338,5 +440,15 @@ public class ReloadEvents {
          * @param buf the buffer recieved from the server
          */
         void interpretDataClient(PacketByteBuf buf);
+
+        /**
+         * Syncers that need further packets, like the delta based {@link DataPackSyncer}, return false here
+         * and call {@link ReloadEvents#onSyncerReceived(String)} themselves once their data is complete.
+         *
+         * @return true if the syncer is done after {@link #interpretDataClient(PacketByteBuf)}
+         */
+        default boolean isCompleteOnReceive() {
+            return true;
+        }
     }
 }
\ No newline at end of file
@@ -2,12 +2,18 @@ package smartin.miapi.item;
 
 import net.minecraft.enchantment.Enchantment;
 import net.minecraft.enchantment.EnchantmentHelper;
+import net.minecraft.enchantment.EnchantmentLevelEntry;
 import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+import org.jetbrains.annotations.Nullable;
+import smartin.miapi.modules.cache.ModularItemCache;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class FakeEnchantment {
+    public static final ModularItemCache.CacheSlot<LevelTable> LEVEL_TABLE_SLOT = ModularItemCache.createSlot("miapi_fake_enchantment_levels", LevelTable::new);
 
     public static Map<Enchantment, List<SpecificEnchantmentTransformer>> enchantmentListMap = new ConcurrentHashMap<>();
 
@@ -15,6 +21,19 @@ public class FakeEnchantment {
 
     public static List<EnchantmentAdder> adder = new ArrayList<>();
 
+    /**
+     * Returns the level of the enchantment after all transformers, served from the {@link LevelTable} of the stack if it has one.
+     *
+     * @param level the level the stack has without fake enchantments
+     */
+    public static int getLevel(Enchantment enchantment, ItemStack stack, int level) {
+        LevelTable table = ModularItemCache.get(stack, LEVEL_TABLE_SLOT, null);
+        if (table == null) {
+            return getFakeLevel(enchantment, stack, level);
+        }
+        return table.getLevel(enchantment, stack, level);
+    }
+
     public static int getFakeLevel(Enchantment enchantment, ItemStack stack, int level) {
         if (enchantmentListMap.get(enchantment) != null) {
             for (SpecificEnchantmentTransformer transformer : enchantmentListMap.get(enchantment)) {
@@ -34,13 +53,76 @@ public class FakeEnchantment {
     }
 
     public static void addEnchantments(EnchantmentHelper.Consumer consumer, ItemStack stack) {
-        Set<Enchantment> enchantments = new HashSet<>();
+        LevelTable table = ModularItemCache.get(stack, LEVEL_TABLE_SLOT, null);
+        if (table != null) {
+            for (EnchantmentLevelEntry entry : table.getAddedEnchantments(stack)) {
+                consumer.accept(entry.enchantment, entry.level);
+            }
+            return;
+        }
+        getAddedEnchantments(stack).forEach(enchantment -> {
+            consumer.accept(enchantment, getFakeLevel(enchantment, stack, 0));
+        });
+    }
+
+    protected static Set<Enchantment> getAddedEnchantments(ItemStack stack) {
+        Set<Enchantment> enchantments = new LinkedHashSet<>();
         adder.forEach(enchantmentAdder -> {
             enchantments.addAll(enchantmentAdder.getEnchantments(stack));
         });
-        enchantments.forEach(enchantment -> {
-            consumer.accept(enchantment, getFakeLevel(enchantment, stack, 0));
-        });
+        return enchantments;
+    }
+
+    /**
+     * The fake enchantment levels of one cached item, filled in the first time each enchantment is requested.
+     * Levels are indexed by the raw id of the enchantment. The level without fake enchantments is stored with each entry,
+     * if another mod changes it the level is computed again instead of served from the table.
+     */
+    public static class LevelTable {
+        protected static final long UNKNOWN = Long.MIN_VALUE;
+        /**
+         * The base level in the upper and the fake level in the lower 32 bits, so both are always read together.
+         */
+        protected final AtomicLongArray levels;
+        @Nullable
+        protected volatile List<EnchantmentLevelEntry> addedEnchantments;
+
+        public LevelTable(ItemStack stack) {
+            levels = new AtomicLongArray(Registries.ENCHANTMENT.size());
+            for (int i = 0; i < levels.length(); i++) {
+                levels.set(i, UNKNOWN);
+            }
+        }
+
+        public int getLevel(Enchantment enchantment, ItemStack stack, int level) {
+            int id = Registries.ENCHANTMENT.getRawId(enchantment);
+            if (id < 0 || id >= levels.length()) {
+                return getFakeLevel(enchantment, stack, level);
+            }
+            long entry = levels.get(id);
+            if (entry != UNKNOWN && (int) (entry >> 32) == level) {
+                return (int) entry;
+            }
+            int fakeLevel = getFakeLevel(enchantment, stack, level);
+            levels.set(id, (long) level << 32 | (fakeLevel & 0xFFFFFFFFL));
+            return fakeLevel;
+        }
+
+        /**
+         * @return the enchantments of all {@link EnchantmentAdder}s with their fake level
+         */
+        public List<EnchantmentLevelEntry> getAddedEnchantments(ItemStack stack) {
+            List<EnchantmentLevelEntry> entries = addedEnchantments;
+            if (entries == null) {
+                List<EnchantmentLevelEntry> computed = new ArrayList<>();
+                FakeEnchantment.getAddedEnchantments(stack).forEach(enchantment -> {
+                    computed.add(new EnchantmentLevelEntry(enchantment, getLevel(enchantment, stack, 0)));
+                });
+                entries = List.copyOf(computed);
+                addedEnchantments = entries;
+            }
+            return entries;
+        }
     }
 
     public interface EnchantmentTransformer {
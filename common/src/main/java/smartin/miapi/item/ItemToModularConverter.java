@@ -20,7 +20,7 @@ public class ItemToModularConverter implements ModularItemStackConverter.Modular
 
 
     public ItemToModularConverter() {
-        Miapi.registerReloadHandler(ReloadEvents.MAIN, "modular_converter", regexes, (isClient, path, data) -> {
+        Miapi.registerJsonReloadHandler(ReloadEvents.MAIN, "modular_converter", regexes, (isClient, path, data) -> {
             Map<String, ItemModule.ModuleInstance> dataMap;
             TypeToken<Map<String, ItemModule.ModuleInstance>> token = new TypeToken<>() {
             };
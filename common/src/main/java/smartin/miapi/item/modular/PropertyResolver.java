@@ -1,12 +1,16 @@
 package smartin.miapi.item.modular;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.Pair;
 import smartin.miapi.Miapi;
 import smartin.miapi.modules.ItemModule;
 import smartin.miapi.modules.properties.util.MergeType;
 import smartin.miapi.modules.properties.util.ModuleProperty;
+import smartin.miapi.registries.RegistryInventory;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -18,26 +22,119 @@ public class PropertyResolver {
     public static List<Pair<Identifier, PropertyProvider>> registry = Collections.synchronizedList(new ArrayList<>());
 
     /**
-     * Resolves {@link ModuleProperty} maps for an {@link ItemModule.ModuleInstance}
+     * Incremented whenever the registry changes, so cached {@link StaticLayer}s of older pipelines are rebuilt.
+     */
+    private static volatile int version = 0;
+    /**
+     * The number of {@link StaticPropertyProvider}s at the start of the registry.
+     */
+    private static volatile int staticCount = -1;
+    private static final Cache<String, Map<ModuleProperty, JsonElement>> parsedModuleData = CacheBuilder.newBuilder()
+            .maximumSize(4096)
+            .build();
+
+    /**
+     * Resolves {@link ModuleProperty} maps for an {@link ItemModule.ModuleInstance}.
+     * The leading {@link StaticPropertyProvider}s only depend on the {@link ItemModule}, their result is resolved once per module
+     * and copied into each instance. The remaining providers run in registry order across the whole tree,
+     * so each of them sees the result of all previous providers on every instance.
      *
      * @param moduleInstance the {@link ItemModule.ModuleInstance} to resolve for
-     * @return a map of {@link ModuleProperty} and their related Data
      */
     public static void resolve(ItemModule.ModuleInstance moduleInstance) {
-        moduleInstance.allSubModules().forEach(instance -> {
+        List<ItemModule.ModuleInstance> instances = moduleInstance.allSubModules();
+        for (ItemModule.ModuleInstance instance : instances) {
             if (instance.rawProperties == null) {
-                instance.rawProperties = new ConcurrentHashMap<>();
+                instance.rawProperties = new ConcurrentHashMap<>(instance.module.getStaticProperties());
+            } else {
+                instance.rawProperties.putAll(instance.module.getStaticProperties());
+            }
+        }
+        List<Pair<Identifier, PropertyProvider>> providers;
+        synchronized (registry) {
+            providers = new ArrayList<>(registry);
+        }
+        int skip = getStaticCount();
+        for (int i = skip; i < providers.size(); i++) {
+            PropertyProvider propertyProvider = providers.get(i).getRight();
+            for (ItemModule.ModuleInstance instance : instances) {
+                Map<ModuleProperty, JsonElement> resolved = propertyProvider.resolve(instance, instance.rawProperties);
+                if (resolved != instance.rawProperties) {
+                    instance.rawProperties.putAll(resolved);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the leading {@link StaticPropertyProvider}s for a module.
+     * This is cached by {@link ItemModule#getStaticProperties()}, use that instead.
+     *
+     * @param module the module to resolve
+     * @return the static properties with the pipeline version they were resolved with
+     */
+    public static StaticLayer resolveStatic(ItemModule module) {
+        int currentVersion = version;
+        int count = getStaticCount();
+        Map<ModuleProperty, JsonElement> map = new HashMap<>();
+        ItemModule.ModuleInstance instance = new ItemModule.ModuleInstance(module);
+        for (int i = 0; i < count && i < registry.size(); i++) {
+            Map<ModuleProperty, JsonElement> resolved = registry.get(i).getRight().resolve(instance, map);
+            if (resolved != map) {
+                map.putAll(resolved);
+            }
+        }
+        return new StaticLayer(currentVersion, Collections.unmodifiableMap(map));
+    }
+
+    /**
+     * Parses the "properties" module data of an instance. Items of the same kind share the same strings,
+     * so the parsed result is cached and a deep copy is handed out.
+     *
+     * @param properties the JSON object of the properties
+     * @return a new map of the known properties
+     */
+    public static Map<ModuleProperty, JsonElement> parseModuleData(String properties) {
+        Map<ModuleProperty, JsonElement> parsed = parsedModuleData.getIfPresent(properties);
+        if (parsed == null) {
+            parsed = new HashMap<>();
+            JsonObject moduleJson = Miapi.gson.fromJson(properties, JsonObject.class);
+            if (moduleJson != null) {
+                for (Map.Entry<String, JsonElement> entry : moduleJson.entrySet()) {
+                    ModuleProperty property = RegistryInventory.moduleProperties.get(entry.getKey());
+                    if (property != null) {
+                        parsed.put(property, entry.getValue());
+                    }
+                }
             }
-        });
-        registry.forEach((pair) -> {
-            PropertyProvider propertyProvider = pair.getRight();
-            moduleInstance.allSubModules().forEach(instance -> {
-                if (instance.rawProperties == null) {
-                    instance.rawProperties = new ConcurrentHashMap<>();
+            parsedModuleData.put(properties, parsed);
+        }
+        Map<ModuleProperty, JsonElement> map = new HashMap<>(parsed.size());
+        parsed.forEach((property, element) -> map.put(property, element.deepCopy()));
+        return map;
+    }
+
+    public static int getVersion() {
+        return version;
+    }
+
+    protected static int getStaticCount() {
+        int count = staticCount;
+        if (count < 0) {
+            synchronized (registry) {
+                count = 0;
+                while (count < registry.size() && registry.get(count).getRight().isStatic()) {
+                    count++;
                 }
-                instance.rawProperties.putAll(propertyProvider.resolve(instance, instance.rawProperties));
-            });
-        });
+            }
+            staticCount = count;
+        }
+        return count;
+    }
+
+    protected static void onRegistryChange() {
+        staticCount = -1;
+        version++;
     }
 
     /**
@@ -59,6 +156,7 @@ public class PropertyResolver {
         for (Pair<Identifier, PropertyProvider> pair : registry) {
             if (before.contains(pair.getLeft())) {
                 registry.add(index, entry);
+                onRegistryChange();
                 return propertyProvider;
             }
             index++;
@@ -66,11 +164,13 @@ public class PropertyResolver {
 
         // If after identifiers are not found, append at the end
         registry.add(entry);
+        onRegistryChange();
         return propertyProvider;
     }
 
     public static PropertyProvider register(Identifier identifier, PropertyProvider propertyProvider) {
         registry.add(new Pair<>(identifier, propertyProvider));
+        onRegistryChange();
         return propertyProvider;
     }
 
@@ -94,5 +194,33 @@ public class PropertyResolver {
      */
     public interface PropertyProvider {
         Map<ModuleProperty, JsonElement> resolve(ItemModule.ModuleInstance moduleInstance, Map<ModuleProperty, JsonElement> oldMap);
+
+        /**
+         * @return true if the result only depends on {@link ItemModule.ModuleInstance#module}
+         */
+        default boolean isStatic() {
+            return false;
+        }
+    }
+
+    /**
+     * A {@link PropertyProvider} whose result only depends on the {@link ItemModule} of the instance, not on its data or position in the tree.
+     * As long as it is registered before any dynamic provider its result is resolved once per module and reused for every item.
+     * The instance it receives is a bare instance of the module without data, parent or sub-modules.
+     */
+    public interface StaticPropertyProvider extends PropertyProvider {
+        @Override
+        default boolean isStatic() {
+            return true;
+        }
+    }
+
+    /**
+     * The cached result of the static providers for one module.
+     *
+     * @param version    the {@link #getVersion()} this was resolved with
+     * @param properties the resolved properties, must not be modified
+     */
+    public record StaticLayer(int version, Map<ModuleProperty, JsonElement> properties) {
     }
 }
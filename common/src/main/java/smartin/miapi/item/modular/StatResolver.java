@@ -1,6 +1,8 @@
 package smartin.miapi.item.modular;
 
 import com.ezylang.evalex.Expression;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.JsonElement;
 import com.mojang.datafixers.util.Either;
 import com.mojang.serialization.Codec;
@@ -8,6 +10,7 @@ import com.redpxnda.nucleus.codec.behavior.CodecBehavior;
 import com.redpxnda.nucleus.codec.misc.CustomIntermediateCodec;
 import com.redpxnda.nucleus.codec.misc.IntermediateCodec;
 import net.minecraft.text.Text;
+import org.jetbrains.annotations.Nullable;
 import smartin.miapi.Miapi;
 import smartin.miapi.modules.ItemModule;
 import smartin.miapi.modules.material.Material;
@@ -123,6 +126,13 @@ public class StatResolver {
      * A map of resolvers, keyed by resolver keyword.
      */
     private static final Map<String, Resolver> resolverMap = new ConcurrentHashMap<>();
+    private static final Pattern STRING_PATTERN = Pattern.compile("\\[([^\\[]*?)\\]");
+    /**
+     * Compiled double expressions, keyed by their raw source string.
+     */
+    private static final Cache<String, CompiledExpression> compiledExpressions = CacheBuilder.newBuilder()
+            .maximumSize(8192)
+            .build();
 
     static {
         StatResolver.registerResolver("translation", new StatResolver.Resolver() {
@@ -281,7 +291,7 @@ public class StatResolver {
      */
     public static String resolveString(String raw, ItemModule.ModuleInstance instance) {
         String resolved = raw;
-        Pattern pattern = Pattern.compile("\\[([^\\[]*?)\\]"); // regex pattern to match text inside square brackets
+        Pattern pattern = STRING_PATTERN; // regex pattern to match text inside square brackets
         Matcher matcher = pattern.matcher(raw);
         int counter = 10;
         while (matcher.find() && counter > 0) {
@@ -316,36 +326,29 @@ public class StatResolver {
 
     /**
      * Resolves all double values contained in square brackets in the input string, and evaluates the resulting expression.
+     * The string is compiled once and cached, see {@link #compile(String)}.
      *
      * @param raw      the input string
      * @param instance the module instance for which to resolve values
      * @return the evaluated result
      */
     public static double resolveDouble(String raw, ItemModule.ModuleInstance instance) {
-        try {
-            return Double.parseDouble(raw);
-        } catch (Exception exception) {
+        return compile(raw).evaluate(instance);
+    }
 
+    /**
+     * Returns the compiled form of a stat expression, compiling and caching it on first use.
+     *
+     * @param raw the input string
+     * @return the compiled expression
+     */
+    public static CompiledExpression compile(String raw) {
+        CompiledExpression compiled = compiledExpressions.getIfPresent(raw);
+        if (compiled == null) {
+            compiled = CompiledExpression.compile(raw);
+            compiledExpressions.put(raw, compiled);
         }
-        String resolved = raw;
-        Pattern pattern = Pattern.compile("\\[(.*?)\\]"); // regex pattern to match text inside square brackets
-        Matcher matcher = pattern.matcher(raw);
-        while (matcher.find()) {
-            String match = matcher.group(1);
-            String[] parts = match.split("\\."); // split by dot
-            if (parts.length >= 2) {
-                String resolverKey = parts[0];
-                String resolverData = String.join(".", Arrays.copyOfRange(parts, 1, parts.length)); // join the remaining parts with dots
-                Resolver resolver = resolverMap.get(resolverKey);
-                if (resolver != null) {
-                    String resolvedData = String.valueOf(resolver.resolveDouble(resolverData, instance));
-                    resolved = resolved.replace("[" + match + "]", resolvedData);
-                } else {
-                    resolved = resolved.replace("[" + match + "]", "");
-                }
-            }
-        }
-        return resolveCalculation(resolved);
+        return compiled;
     }
 
     /**
@@ -378,6 +381,104 @@ public class StatResolver {
      */
     public static void registerResolver(String keyWord, Resolver resolver) {
         resolverMap.put(keyWord, resolver);
+        compiledExpressions.invalidateAll();
+    }
+
+    /**
+     * A stat expression parsed once into an EvalEx {@link Expression}.
+     * Every {@code [resolver.data]} placeholder is replaced by a variable that is bound to the resolver result on evaluation,
+     * so evaluating never rewrites or reparses the source string.
+     */
+    public static final class CompiledExpression {
+        private static final String VARIABLE_PREFIX = "miapiStat";
+        private final String source;
+        private final double constant;
+        @Nullable
+        private final Expression expression;
+        private final String[] variables;
+        private final Resolver[] resolvers;
+        private final String[] resolverData;
+
+        private CompiledExpression(String source, double constant, @Nullable Expression expression, String[] variables, Resolver[] resolvers, String[] resolverData) {
+            this.source = source;
+            this.constant = constant;
+            this.expression = expression;
+            this.variables = variables;
+            this.resolvers = resolvers;
+            this.resolverData = resolverData;
+        }
+
+        public static CompiledExpression compile(String raw) {
+            try {
+                return new CompiledExpression(raw, Double.parseDouble(raw), null, new String[0], new Resolver[0], new String[0]);
+            } catch (Exception exception) {
+
+            }
+            StringBuilder template = new StringBuilder();
+            List<String> variables = new ArrayList<>();
+            List<Resolver> resolvers = new ArrayList<>();
+            List<String> resolverData = new ArrayList<>();
+            int index = 0;
+            while (index < raw.length()) {
+                int open = raw.indexOf('[', index);
+                int close = open < 0 ? -1 : raw.indexOf(']', open + 1);
+                if (close < 0) {
+                    break;
+                }
+                template.append(raw, index, open);
+                String match = raw.substring(open + 1, close);
+                String[] parts = match.split("\\."); // split by dot
+                if (parts.length >= 2) {
+                    Resolver resolver = resolverMap.get(parts[0]);
+                    if (resolver != null) {
+                        String variable = VARIABLE_PREFIX + variables.size();
+                        variables.add(variable);
+                        resolvers.add(resolver);
+                        resolverData.add(String.join(".", Arrays.copyOfRange(parts, 1, parts.length))); // join the remaining parts with dots
+                        template.append(variable);
+                    }
+                } else {
+                    template.append('[').append(match).append(']');
+                }
+                index = close + 1;
+            }
+            template.append(raw.substring(Math.min(index, raw.length())));
+            return new CompiledExpression(
+                    raw,
+                    0,
+                    new Expression(template.toString(), configuration),
+                    variables.toArray(new String[0]),
+                    resolvers.toArray(new Resolver[0]),
+                    resolverData.toArray(new String[0]));
+        }
+
+        /**
+         * Evaluates this expression in relation to the given module instance.
+         *
+         * @param instance the module instance for which to resolve values
+         * @return the evaluated result, 0 if the expression is invalid
+         */
+        public double evaluate(ItemModule.ModuleInstance instance) {
+            if (expression == null) {
+                return constant;
+            }
+            //resolvers may evaluate other expressions, so they are resolved before locking this one
+            double[] values = new double[resolvers.length];
+            for (int i = 0; i < resolvers.length; i++) {
+                values[i] = resolvers[i].resolveDouble(resolverData[i], instance);
+            }
+            try {
+                synchronized (expression) {
+                    for (int i = 0; i < variables.length; i++) {
+                        expression.with(variables[i], values[i]);
+                    }
+                    return expression.evaluate().getNumberValue().doubleValue();
+                }
+            } catch (Exception e) {
+                Miapi.LOGGER.error("could not evaluate " + source, e);
+                return 0;
+            }
+        }
     }
 
     /**
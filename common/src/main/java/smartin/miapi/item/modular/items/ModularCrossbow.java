@@ -326,7 +326,7 @@ public class ModularCrossbow extends CrossbowItem implements ModularItem, Custom
 
         clearProjectiles(stack);
         setCharged(stack, false);
-        ModularItemCache.getUUIDFor(stack);
+        ModularItemCache.getKeyFor(stack);
         MiapiProjectileEvents.MODULAR_CROSSBOW_POST_SHOT.invoker().shoot(entity, stack);
     }
 
@@ -132,7 +132,7 @@ public class EnchantmentHelperMixin {
             cancellable = true)
     private static void miapi$modifyPossibleEntries(Enchantment enchantment, ItemStack stack, CallbackInfoReturnable<Integer> cir) {
         if (stack.getItem() instanceof ModularItem) {
-            cir.setReturnValue(FakeEnchantment.getFakeLevel(enchantment, stack, cir.getReturnValue()));
+            cir.setReturnValue(FakeEnchantment.getLevel(enchantment, stack, cir.getReturnValue()));
         }
     }
 
@@ -7,9 +7,11 @@ import net.minecraft.entity.attribute.DefaultAttributeContainer;
 import net.minecraft.entity.effect.StatusEffects;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
@@ -19,13 +21,15 @@ import smartin.miapi.attributes.ElytraAttributes;
 import smartin.miapi.config.MiapiConfig;
 import smartin.miapi.events.MiapiEvents;
 import smartin.miapi.item.modular.ModularItem;
+import smartin.miapi.modules.abilities.util.AbilityState;
+import smartin.miapi.modules.cache.EquipmentSnapshot;
 import smartin.miapi.modules.properties.EquipmentSlotProperty;
 import smartin.miapi.registries.RegistryInventory;
 
 import java.util.Map;
 
 @Mixin(LivingEntity.class)
-abstract class LivingEntityMixin {
+abstract class LivingEntityMixin implements EquipmentSnapshot.Holder, AbilityState.Holder {
     //@Unique
     //public float currentShieldingArmor = 0;
 
@@ -33,6 +37,36 @@ abstract class LivingEntityMixin {
     @Final
     public LimbAnimator limbAnimator;
 
+    @Unique
+    @Nullable
+    private EquipmentSnapshot miapi$equipmentSnapshot;
+
+    @Unique
+    @Nullable
+    private AbilityState miapi$abilityState;
+
+    @Override
+    @Nullable
+    public EquipmentSnapshot miapi$getEquipmentSnapshot() {
+        return miapi$equipmentSnapshot;
+    }
+
+    @Override
+    public void miapi$setEquipmentSnapshot(@Nullable EquipmentSnapshot snapshot) {
+        miapi$equipmentSnapshot = snapshot;
+    }
+
+    @Override
+    @Nullable
+    public AbilityState miapi$getAbilityState() {
+        return miapi$abilityState;
+    }
+
+    @Override
+    public void miapi$setAbilityState(@Nullable AbilityState state) {
+        miapi$abilityState = state;
+    }
+
     @Inject(method = "getPreferredEquipmentSlot", at = @At("HEAD"), cancellable = true)
     private static void miapi$onGetPreferredEquipmentSlot(ItemStack stack, CallbackInfoReturnable<EquipmentSlot> cir) {
         if (stack.getItem() instanceof ModularItem) {
@@ -48,9 +82,10 @@ abstract class LivingEntityMixin {
             at = @At("RETURN"))
     private void miapi$enEquipChange(CallbackInfoReturnable<Map<EquipmentSlot, ItemStack>> cir) {
         LivingEntity player = (LivingEntity) (Object) this;
-        if (player instanceof PlayerEntity entity) {
-            Map<EquipmentSlot, ItemStack> map = cir.getReturnValue();
-            if (map!=null && !map.isEmpty()) {
+        Map<EquipmentSlot, ItemStack> map = cir.getReturnValue();
+        if (map != null && !map.isEmpty()) {
+            EquipmentSnapshot.invalidate(player);
+            if (player instanceof PlayerEntity entity) {
                 MiapiEvents.PLAYER_EQUIP_EVENT.invoker().equip(entity, map);
             }
         }
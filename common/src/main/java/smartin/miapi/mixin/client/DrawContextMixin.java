@@ -0,0 +1,26 @@
+package smartin.miapi.mixin.client;
+
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import smartin.miapi.client.renderer.GuiIconCache;
+import smartin.miapi.item.modular.VisualModularItem;
+
+@Mixin(DrawContext.class)
+public class DrawContextMixin {
+    @Inject(
+            method = "drawItem(Lnet/minecraft/entity/LivingEntity;Lnet/minecraft/world/World;Lnet/minecraft/item/ItemStack;IIII)V",
+            at = @At("HEAD"),
+            cancellable = true
+    )
+    private void miapi$drawCachedIcon(LivingEntity entity, World world, ItemStack stack, int x, int y, int seed, int z, CallbackInfo ci) {
+        if (stack.getItem() instanceof VisualModularItem && GuiIconCache.draw((DrawContext) (Object) this, stack, x, y, z)) {
+            ci.cancel();
+        }
+    }
+}
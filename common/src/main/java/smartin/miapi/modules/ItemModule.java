@@ -6,13 +6,17 @@ import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtString;
 import org.jetbrains.annotations.Nullable;
-import smartin.miapi.config.MiapiConfig;
 import smartin.miapi.datapack.ReloadEvents;
 import smartin.miapi.item.modular.PropertyResolver;
 import smartin.miapi.item.modular.VisualModularItem;
 import smartin.miapi.modules.cache.ModularItemCache;
 import smartin.miapi.modules.properties.util.MergeType;
+import smartin.miapi.modules.properties.util.MergedPropertyTable;
 import smartin.miapi.modules.properties.util.ModuleProperty;
 import smartin.miapi.registries.MiapiRegistry;
 import smartin.miapi.registries.RegistryInventory;
@@ -21,6 +25,8 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static smartin.miapi.Miapi.LOGGER;
 import static smartin.miapi.Miapi.gson;
@@ -38,14 +44,27 @@ public class ItemModule {
      * The map of properties for the module.
      */
     private final Map<String, JsonElement> properties;
+    /**
+     * The cached result of the static property providers for this module.
+     */
+    private volatile PropertyResolver.StaticLayer staticLayer;
     /**
      * The key for the properties in the Cache.
      */
     public static final String MODULE_KEY = "modules";
     /**
-     *
+     * The key the module tree is stored under in the item NBT.
+     * Current items store a compact {@link NbtCompound}, legacy items a JSON string.
      */
     public static final String NBT_MODULE_KEY = "miapi_modules";
+    /**
+     * The typed cache slot holding the decoded module tree. It is populated eagerly since nearly every lookup needs it.
+     */
+    public static final ModularItemCache.CacheSlot<ModuleInstance> MODULE_SLOT = ModularItemCache.createSlot(MODULE_KEY, ItemModule::readModulesForCache, true);
+    /**
+     * The typed cache slot holding the merged properties of the whole item, see {@link #getMergedProperties(ItemStack, MergeType)}.
+     */
+    public static final ModularItemCache.CacheSlot<MergedPropertyTable> MERGED_PROPERTIES_SLOT = ModularItemCache.createSlot("miapi_merged_properties", stack -> new MergedPropertyTable(getModules(stack)));
     /**
      * The key for the raw properties in the Cache.
      */
@@ -76,6 +95,21 @@ public class ItemModule {
         return properties;
     }
 
+    /**
+     * Returns the properties resolved by the {@link PropertyResolver.StaticPropertyProvider}s for this module.
+     * They are resolved once and shared by every instance of this module.
+     *
+     * @return an immutable map of the static properties
+     */
+    public Map<ModuleProperty, JsonElement> getStaticProperties() {
+        PropertyResolver.StaticLayer layer = staticLayer;
+        if (layer == null || layer.version() != PropertyResolver.getVersion()) {
+            layer = PropertyResolver.resolveStatic(this);
+            staticLayer = layer;
+        }
+        return layer.properties();
+    }
+
     public Map<ModuleProperty, JsonElement> getKeyedProperties() {
         HashMap<ModuleProperty, JsonElement> map = new HashMap<>();
         getProperties().forEach((key, jsonData) -> map.put(RegistryInventory.moduleProperties.get(key), jsonData));
@@ -99,18 +133,28 @@ public class ItemModule {
      */
     public static void loadFromData(String path, String moduleJsonString, boolean isClient) {
         try {
-            JsonObject moduleJson = gson.fromJson(moduleJsonString, JsonObject.class);
+            loadFromData(path, gson.fromJson(moduleJsonString, JsonObject.class), isClient);
+        } catch (Exception e) {
+            LOGGER.warn("Could not load Module " + path, e);
+        }
+    }
+
+    /**
+     * Loads an ItemModule from already parsed JSON.
+     *
+     * @param path       the path of the JSON file
+     * @param moduleJson the parsed module JSON
+     */
+    public static void loadFromData(String path, JsonObject moduleJson, boolean isClient) {
+        try {
             if (!path.startsWith(MODULE_KEY)) {
                 return;
             }
-            Type type = new TypeToken<Map<String, JsonElement>>() {
-            }.getType();
             String name = moduleJson.get("name").getAsString();
             Map<String, JsonElement> moduleProperties = new HashMap<>();
-            Map<String, JsonElement> rawProperties = gson.fromJson(moduleJsonString, type);
-            rawProperties.forEach((key, json) -> {
-                if (isValidProperty(key, path, json, isClient)) {
-                    moduleProperties.put(key, json);
+            moduleJson.entrySet().forEach(entry -> {
+                if (isValidProperty(entry.getKey(), path, entry.getValue(), isClient)) {
+                    moduleProperties.put(entry.getKey(), entry.getValue());
                 }
             });
 
@@ -260,6 +304,41 @@ public class ItemModule {
         return false;
     }
 
+    @Nullable
+    protected static ModuleInstance readModulesForCache(ItemStack itemStack) {
+        if (itemStack.getItem() instanceof VisualModularItem) {
+            try {
+                ModuleInstance root = ModuleInstance.fromItemNbt(itemStack.getOrCreateNbt());
+                if (root != null) {
+                    trackSubModules(root);
+                    root.getFlatTree();
+                }
+                return root;
+            } catch (Exception e) {
+                LOGGER.error("could not resolve Modules", e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Makes sure every {@link ModuleInstance#subModules} of the tree is a {@link SubModuleMap},
+     * so changes to it reset the cached {@link FlatTree}. This runs once when a tree is read,
+     * before it is shared through the cache.
+     *
+     * @param instance the root of the tree
+     */
+    protected static void trackSubModules(ModuleInstance instance) {
+        if (!(instance.subModules instanceof SubModuleMap)) {
+            instance.subModules = new SubModuleMap(instance, instance.subModules);
+        }
+        instance.subModules.values().forEach(subModule -> {
+            if (subModule != null) {
+                trackSubModules(subModule);
+            }
+        });
+    }
+
     /**
      * Gets the root module instance associated with the given ItemStack.
      *
@@ -267,14 +346,12 @@ public class ItemModule {
      * @return the module instance associated with the given ItemStack
      */
     public static ModuleInstance getModules(ItemStack stack) {
-        if(ReloadEvents.isInReload()){
-            if(MiapiConfig.INSTANCE.server.other.verboseLogging){
-                //LOGGER.info("Item cannot have modules during a reload.");
+        if (stack.getItem() instanceof VisualModularItem && (stack.getOrCreateNbt().get(MODULE_KEY) != null || stack.getOrCreateNbt().get(ItemModule.NBT_MODULE_KEY) != null)) {
+            ModuleInstance moduleInstance = ModularItemCache.getRaw(stack, MODULE_SLOT);
+            if (ReloadEvents.isInReload()) {
+                //during a reload only modules resolved before the reload are served
+                return moduleInstance == null ? new ModuleInstance(new ItemModule("empty", new HashMap<>())) : moduleInstance;
             }
-            return new ModuleInstance(new ItemModule("empty", new HashMap<>()));
-        }
-        if (stack.getItem() instanceof VisualModularItem && !ReloadEvents.isInReload() && (stack.getOrCreateNbt().get(MODULE_KEY) != null || stack.getOrCreateNbt().get(ItemModule.NBT_MODULE_KEY) != null)) {
-            ModuleInstance moduleInstance = ModularItemCache.getRaw(stack, MODULE_KEY);
             if (moduleInstance == null || moduleInstance.module == null) {
                 IllegalArgumentException exception = new IllegalArgumentException("Item has Invalid Module onReload - treating it like it has no modules");
                 LOGGER.warn("Item has Invalid Module onReload - treating it like it has no modules", exception);
@@ -348,46 +425,38 @@ public class ItemModule {
      * @return the merged PropertyJson
      */
     public static JsonElement getMergedProperty(ItemStack itemStack, ModuleProperty property, MergeType type) {
-        ModuleInstance moduleInstance = getModules(itemStack);
-        JsonElement mergedProperty = null;
-        for (ModuleInstance module : moduleInstance.allSubModules()) {
-            JsonElement currentProperty = module.getProperties().get(property);
-            if (currentProperty != null) {
-                if (mergedProperty == null) {
-                    mergedProperty = currentProperty;
-                } else {
-                    mergedProperty = property.merge(mergedProperty, currentProperty, type);
-                }
-            }
+        MergedPropertyTable table = ModularItemCache.getVisualOnlyCache(itemStack, MERGED_PROPERTIES_SLOT, null);
+        if (table != null) {
+            return table.get(property, type);
         }
-        return mergedProperty;
+        return getMergedProperty(getModules(itemStack), property, type);
+    }
+
+    /**
+     * Returns all merged properties of the ItemStack. The table is built in a single pass and cached with the item,
+     * it must not be modified.
+     *
+     * @param itemStack the ModularItemStack
+     * @param type      the mergeType for the merge Logic
+     * @return an immutable map of the merged properties
+     */
+    public static Map<ModuleProperty, JsonElement> getMergedProperties(ItemStack itemStack, MergeType type) {
+        MergedPropertyTable table = ModularItemCache.getVisualOnlyCache(itemStack, MERGED_PROPERTIES_SLOT, null);
+        if (table != null) {
+            return table.get(type);
+        }
+        return MergedPropertyTable.merge(getModules(itemStack), type);
     }
 
     /**
      * Creates a flat list of all modules starting from the specified root module.
+     * The list is cached by the module instance, see {@link ModuleInstance#getFlatTree()}.
      *
      * @param root the root module
      * @return the flat list of all modules
      */
     public static List<ModuleInstance> createFlatList(ModuleInstance root) {
-        List<ModuleInstance> flatList = new ArrayList<>();
-        List<ModuleInstance> queue = new ArrayList<>();
-        queue.add(root);
-
-        while (!queue.isEmpty()) {
-            ModuleInstance module = queue.remove(0);
-            if (module != null) {
-                flatList.add(module);
-
-                List<ModuleInstance> submodules = new ArrayList<>();
-                module.subModules.keySet().stream().sorted((a, b) -> b - a).forEach(id -> {
-                    submodules.add(module.subModules.get(id));
-                });
-                queue.addAll(0, submodules);
-            }
-        }
-
-        return flatList;
+        return root.allSubModules();
     }
 
 
@@ -438,14 +507,13 @@ public class ItemModule {
                 module = ItemModule.empty;
             }
             ModuleInstance moduleInstance = new ModuleInstance(module);
-            moduleInstance.subModules = gson.fromJson(jsonObject.get("subModules"), new TypeToken<Map<Integer, ModuleInstance>>() {
+            Map<Integer, ModuleInstance> subModules = gson.fromJson(jsonObject.get("subModules"), new TypeToken<Map<Integer, ModuleInstance>>() {
             }.getType());
-            if (moduleInstance.subModules != null) {
-                moduleInstance.subModules.forEach((key, subModule) -> {
+            if (subModules != null) {
+                subModules.forEach((key, subModule) -> {
                     subModule.parent = moduleInstance;
                 });
-            } else {
-                moduleInstance.subModules = new HashMap<>();
+                moduleInstance.subModules.putAll(subModules);
             }
             moduleInstance.moduleData = gson.fromJson(jsonObject.get("moduleData"), new TypeToken<Map<String, String>>() {
             }.getType());
@@ -456,6 +524,96 @@ public class ItemModule {
         }
     }
 
+    /**
+     * Encodes a {@link ModuleInstance} tree as native NBT instead of a JSON string.
+     * Module ids are interned into a per-item palette so each node only stores a small index.
+     * <pre>
+     * {v: 1b, ids: ["blade", "handle"], tree: {m: 0, d: {key: "value"}, s: [{k: 0, m: 1}]}}
+     * </pre>
+     */
+    public static class ModuleInstanceNbtAdapter {
+        public static final byte VERSION = 1;
+
+        public static NbtCompound write(ModuleInstance root) {
+            List<String> palette = new ArrayList<>();
+            Map<String, Integer> paletteIndex = new HashMap<>();
+            NbtCompound compound = new NbtCompound();
+            compound.putByte("v", VERSION);
+            compound.put("tree", writeNode(root, palette, paletteIndex));
+            NbtList ids = new NbtList();
+            palette.forEach(id -> ids.add(NbtString.of(id)));
+            compound.put("ids", ids);
+            return compound;
+        }
+
+        protected static NbtCompound writeNode(ModuleInstance instance, List<String> palette, Map<String, Integer> paletteIndex) {
+            NbtCompound node = new NbtCompound();
+            String moduleKey = instance.module == null ? empty.name : instance.module.name;
+            node.putInt("m", paletteIndex.computeIfAbsent(moduleKey, key -> {
+                palette.add(key);
+                return palette.size() - 1;
+            }));
+            if (instance.moduleData != null && !instance.moduleData.isEmpty()) {
+                NbtCompound data = new NbtCompound();
+                instance.moduleData.forEach((key, value) -> {
+                    if (value != null) {
+                        data.putString(key, value);
+                    }
+                });
+                node.put("d", data);
+            }
+            if (instance.subModules != null && !instance.subModules.isEmpty()) {
+                NbtList subModules = new NbtList();
+                instance.subModules.entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey())
+                        .forEach(entry -> {
+                            NbtCompound subNode = writeNode(entry.getValue(), palette, paletteIndex);
+                            subNode.putInt("k", entry.getKey());
+                            subModules.add(subNode);
+                        });
+                node.put("s", subModules);
+            }
+            return node;
+        }
+
+        public static ModuleInstance read(NbtCompound compound) {
+            NbtList ids = compound.getList("ids", NbtElement.STRING_TYPE);
+            ItemModule[] palette = new ItemModule[ids.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                String moduleKey = ids.getString(i);
+                ItemModule module = moduleRegistry.get(moduleKey);
+                if (module == null) {
+                    LOGGER.warn("Module not found for " + moduleKey + " Key - substituting with empty module");
+                    module = ItemModule.empty;
+                }
+                palette[i] = module;
+            }
+            return readNode(compound.getCompound("tree"), palette);
+        }
+
+        protected static ModuleInstance readNode(NbtCompound node, ItemModule[] palette) {
+            int index = node.getInt("m");
+            ItemModule module = index >= 0 && index < palette.length ? palette[index] : ItemModule.empty;
+            ModuleInstance moduleInstance = new ModuleInstance(module);
+            if (node.contains("d", NbtElement.COMPOUND_TYPE)) {
+                NbtCompound data = node.getCompound("d");
+                for (String key : data.getKeys()) {
+                    moduleInstance.moduleData.put(key, data.getString(key));
+                }
+            }
+            if (node.contains("s", NbtElement.LIST_TYPE)) {
+                NbtList subModules = node.getList("s", NbtElement.COMPOUND_TYPE);
+                for (int i = 0; i < subModules.size(); i++) {
+                    NbtCompound subNode = subModules.getCompound(i);
+                    ModuleInstance subModule = readNode(subNode, palette);
+                    subModule.parent = moduleInstance;
+                    moduleInstance.subModules.put(subNode.getInt("k"), subModule);
+                }
+            }
+            return moduleInstance;
+        }
+    }
+
     /**
      * A class representing a single module instance that belongs to an item.
      */
@@ -473,7 +631,7 @@ public class ItemModule {
         /**
          * A map of child module instances to their respective module IDs.
          */
-        public Map<Integer, ModuleInstance> subModules = new HashMap<>();
+        public Map<Integer, ModuleInstance> subModules = new SubModuleMap(this);
         /**
          * A map of module data keys to their respective values.
          */
@@ -485,6 +643,12 @@ public class ItemModule {
         @Nullable
         public Map<ModuleProperty, JsonElement> rawProperties;
 
+        /**
+         * The cached pre-order view of this subtree, reset by any change to the {@link #subModules} below it.
+         */
+        @Nullable
+        protected transient volatile FlatTree flatTree;
+
         /**
          * Constructs a new module instance with the given item module.
          *
@@ -500,7 +664,36 @@ public class ItemModule {
          * @return a list of all sub-modules
          */
         public List<ModuleInstance> allSubModules() {
-            return createFlatList(this);
+            return getFlatTree().list();
+        }
+
+        /**
+         * Returns the cached pre-order view of this module instance and all its sub-modules,
+         * sub-modules are ordered by their slot id, highest first. The view is built once and reused until
+         * the {@link #subModules} of this instance or one of its sub-modules change.
+         *
+         * @return the flat view of this subtree
+         */
+        public FlatTree getFlatTree() {
+            FlatTree tree = flatTree;
+            if (tree == null) {
+                tree = FlatTree.build(this);
+                flatTree = tree;
+            }
+            return tree;
+        }
+
+        /**
+         * Resets the cached flat view of this instance and all its parents.
+         * This is called by the {@link SubModuleMap}, it only has to be called manually
+         * if {@link #subModules} is replaced with a different map.
+         */
+        public void invalidateFlatTree() {
+            ModuleInstance instance = this;
+            while (instance != null) {
+                instance.flatTree = null;
+                instance = instance.parent;
+            }
         }
 
         /**
@@ -536,22 +729,7 @@ public class ItemModule {
          * @return a map of module properties and their associated JSON elements, keyed by property name
          */
         public Map<ModuleProperty, JsonElement> getPropertiesMerged() {
-            Map<ModuleProperty, JsonElement> map = new ConcurrentHashMap<>();
-            for (ModuleInstance moduleInstance : this.allSubModules()) {
-                moduleInstance.getProperties().forEach((property, element) -> {
-                    if (map.containsKey(property)) {
-                        try {
-                            map.put(property, property.merge(map.get(property), element, MergeType.SMART));
-                        } catch (Exception e) {
-                            LOGGER.error("coudlnt merge " + property, e);
-                            map.put(property, element);
-                        }
-                    } else {
-                        map.put(property, element);
-                    }
-                });
-            }
-            return map;
+            return new ConcurrentHashMap<>(MergedPropertyTable.merge(this, MergeType.SMART));
         }
 
         /**
@@ -662,16 +840,58 @@ public class ItemModule {
             if (clearCache) {
                 ModularItemCache.clearUUIDFor(stack);
             }
-            stack.getOrCreateNbt().putString(ItemModule.NBT_MODULE_KEY, this.toString());
+            stack.getOrCreateNbt().put(ItemModule.NBT_MODULE_KEY, this.toNbt());
             if (stack.getOrCreateNbt().contains(MODULE_KEY)) {
-                //stack.getOrCreateNbt().remove(MODULE_KEY);
+                //legacy items stored the same JSON string a second time
+                stack.getOrCreateNbt().remove(MODULE_KEY);
             }
-            stack.getOrCreateNbt().putString(ItemModule.MODULE_KEY, this.toString());
             if (clearCache) {
                 ModularItemCache.clearUUIDFor(stack);
             }
         }
 
+        /**
+         * Returns the compact NBT representation of this module instance and its submodules.
+         *
+         * @return the encoded module tree
+         */
+        public NbtCompound toNbt() {
+            return ModuleInstanceNbtAdapter.write(this);
+        }
+
+        /**
+         * Returns a module instance decoded from its compact NBT representation.
+         *
+         * @param compound the NBT written by {@link #toNbt()}
+         * @return the decoded module instance
+         */
+        public static ModuleInstance fromNbt(NbtCompound compound) {
+            return ModuleInstanceNbtAdapter.read(compound);
+        }
+
+        /**
+         * Reads the module tree stored on an item, accepting both the NBT format and legacy JSON strings.
+         *
+         * @param tag the item NBT
+         * @return the decoded module instance, or null if the item has no modules
+         */
+        @Nullable
+        public static ModuleInstance fromItemNbt(NbtCompound tag) {
+            NbtElement element = tag.get(ItemModule.NBT_MODULE_KEY);
+            if (element instanceof NbtCompound compound) {
+                return fromNbt(compound);
+            }
+            String modulesString;
+            if (element != null) {
+                modulesString = element.asString();
+            } else if (tag.contains(ItemModule.MODULE_KEY)) {
+                modulesString = tag.getString(ItemModule.MODULE_KEY);
+            } else {
+                return null;
+            }
+            return gson.fromJson(modulesString, ModuleInstance.class);
+        }
+
         /**
          * Returns a JSON string representation of this module instance.
          *
@@ -720,4 +940,289 @@ public class ItemModule {
             return null;
         }
     }
+
+    /**
+     * A pre-order view of a module tree, with the index of each instance's parent and its depth below the root of the view.
+     *
+     * @param instances     the module instances in pre-order, the first one is the root of the view
+     * @param parentIndices the index of the parent of each instance, -1 for the root
+     * @param depths        the depth of each instance, 0 for the root
+     * @param list          an unmodifiable list backed by {@code instances}
+     */
+    public record FlatTree(ModuleInstance[] instances, int[] parentIndices, int[] depths, List<ModuleInstance> list) {
+        protected static FlatTree build(ModuleInstance root) {
+            List<ModuleInstance> instances = new ArrayList<>();
+            List<Integer> parents = new ArrayList<>();
+            List<Integer> depths = new ArrayList<>();
+            collect(root, -1, 0, instances, parents, depths);
+            ModuleInstance[] array = instances.toArray(new ModuleInstance[0]);
+            int[] parentIndices = new int[array.length];
+            int[] depthArray = new int[array.length];
+            for (int i = 0; i < array.length; i++) {
+                parentIndices[i] = parents.get(i);
+                depthArray[i] = depths.get(i);
+            }
+            return new FlatTree(array, parentIndices, depthArray, Collections.unmodifiableList(Arrays.asList(array)));
+        }
+
+        private static void collect(ModuleInstance instance, int parent, int depth, List<ModuleInstance> instances, List<Integer> parents, List<Integer> depths) {
+            if (instance == null) {
+                return;
+            }
+            int index = instances.size();
+            instances.add(instance);
+            parents.add(parent);
+            depths.add(depth);
+            Integer[] ids = instance.subModules.keySet().toArray(new Integer[0]);
+            //highest slot id first, the order the module tree has always been walked in
+            Arrays.sort(ids, Comparator.reverseOrder());
+            for (Integer id : ids) {
+                collect(instance.subModules.get(id), index, depth + 1, instances, parents, depths);
+            }
+        }
+
+        public int size() {
+            return instances.length;
+        }
+    }
+
+    /**
+     * The map of the {@link ModuleInstance#subModules}, any change through it resets the cached {@link FlatTree} of its owner and the owners parents.
+     * Changes through the key, value and entry views are tracked as well.
+     */
+    public static class SubModuleMap extends HashMap<Integer, ModuleInstance> {
+        protected final transient ModuleInstance owner;
+
+        public SubModuleMap(ModuleInstance owner) {
+            this.owner = owner;
+        }
+
+        public SubModuleMap(ModuleInstance owner, @Nullable Map<Integer, ModuleInstance> subModules) {
+            this.owner = owner;
+            if (subModules != null) {
+                super.putAll(subModules);
+            }
+        }
+
+        @Override
+        public ModuleInstance put(Integer key, ModuleInstance value) {
+            owner.invalidateFlatTree();
+            return super.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends Integer, ? extends ModuleInstance> m) {
+            owner.invalidateFlatTree();
+            super.putAll(m);
+        }
+
+        @Override
+        public ModuleInstance putIfAbsent(Integer key, ModuleInstance value) {
+            owner.invalidateFlatTree();
+            return super.putIfAbsent(key, value);
+        }
+
+        @Override
+        public ModuleInstance remove(Object key) {
+            owner.invalidateFlatTree();
+            return super.remove(key);
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            owner.invalidateFlatTree();
+            return super.remove(key, value);
+        }
+
+        @Override
+        public ModuleInstance replace(Integer key, ModuleInstance value) {
+            owner.invalidateFlatTree();
+            return super.replace(key, value);
+        }
+
+        @Override
+        public boolean replace(Integer key, ModuleInstance oldValue, ModuleInstance newValue) {
+            owner.invalidateFlatTree();
+            return super.replace(key, oldValue, newValue);
+        }
+
+        @Override
+        public void replaceAll(BiFunction<? super Integer, ? super ModuleInstance, ? extends ModuleInstance> function) {
+            owner.invalidateFlatTree();
+            super.replaceAll(function);
+        }
+
+        @Override
+        public ModuleInstance computeIfAbsent(Integer key, Function<? super Integer, ? extends ModuleInstance> mappingFunction) {
+            owner.invalidateFlatTree();
+            return super.computeIfAbsent(key, mappingFunction);
+        }
+
+        @Override
+        public ModuleInstance computeIfPresent(Integer key, BiFunction<? super Integer, ? super ModuleInstance, ? extends ModuleInstance> remappingFunction) {
+            owner.invalidateFlatTree();
+            return super.computeIfPresent(key, remappingFunction);
+        }
+
+        @Override
+        public ModuleInstance compute(Integer key, BiFunction<? super Integer, ? super ModuleInstance, ? extends ModuleInstance> remappingFunction) {
+            owner.invalidateFlatTree();
+            return super.compute(key, remappingFunction);
+        }
+
+        @Override
+        public ModuleInstance merge(Integer key, ModuleInstance value, BiFunction<? super ModuleInstance, ? super ModuleInstance, ? extends ModuleInstance> remappingFunction) {
+            owner.invalidateFlatTree();
+            return super.merge(key, value, remappingFunction);
+        }
+
+        @Override
+        public void clear() {
+            owner.invalidateFlatTree();
+            super.clear();
+        }
+
+        @Override
+        public Set<Integer> keySet() {
+            return new TrackedSet<>(super.keySet(), Function.identity());
+        }
+
+        @Override
+        public Collection<ModuleInstance> values() {
+            Collection<ModuleInstance> values = super.values();
+            return new AbstractCollection<>() {
+                @Override
+                public Iterator<ModuleInstance> iterator() {
+                    return new TrackedIterator<>(values.iterator(), Function.identity());
+                }
+
+                @Override
+                public int size() {
+                    return values.size();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return values.contains(o);
+                }
+
+                @Override
+                public void clear() {
+                    SubModuleMap.this.clear();
+                }
+            };
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, ModuleInstance>> entrySet() {
+            return new TrackedSet<>(super.entrySet(), TrackedEntry::new);
+        }
+
+        /**
+         * A key or entry view of the map that resets the flat tree on removals.
+         */
+        protected class TrackedSet<E> extends AbstractSet<E> {
+            protected final Set<E> view;
+            protected final Function<E, E> wrapper;
+
+            protected TrackedSet(Set<E> view, Function<E, E> wrapper) {
+                this.view = view;
+                this.wrapper = wrapper;
+            }
+
+            @Override
+            public Iterator<E> iterator() {
+                return new TrackedIterator<>(view.iterator(), wrapper);
+            }
+
+            @Override
+            public int size() {
+                return view.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return view.contains(o);
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                owner.invalidateFlatTree();
+                return view.remove(o);
+            }
+
+            @Override
+            public void clear() {
+                SubModuleMap.this.clear();
+            }
+        }
+
+        protected class TrackedIterator<E> implements Iterator<E> {
+            protected final Iterator<E> iterator;
+            protected final Function<E, E> wrapper;
+
+            protected TrackedIterator(Iterator<E> iterator, Function<E, E> wrapper) {
+                this.iterator = iterator;
+                this.wrapper = wrapper;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return wrapper.apply(iterator.next());
+            }
+
+            @Override
+            public void remove() {
+                owner.invalidateFlatTree();
+                iterator.remove();
+            }
+        }
+
+        /**
+         * An entry of the map that resets the flat tree when its value is replaced.
+         */
+        protected class TrackedEntry implements Map.Entry<Integer, ModuleInstance> {
+            protected final Map.Entry<Integer, ModuleInstance> entry;
+
+            protected TrackedEntry(Map.Entry<Integer, ModuleInstance> entry) {
+                this.entry = entry;
+            }
+
+            @Override
+            public Integer getKey() {
+                return entry.getKey();
+            }
+
+            @Override
+            public ModuleInstance getValue() {
+                return entry.getValue();
+            }
+
+            @Override
+            public ModuleInstance setValue(ModuleInstance value) {
+                owner.invalidateFlatTree();
+                return entry.setValue(value);
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                return entry.equals(o);
+            }
+
+            @Override
+            public int hashCode() {
+                return entry.hashCode();
+            }
+
+            @Override
+            public String toString() {
+                return entry.toString();
+            }
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package smartin.miapi.modules.abilities.util;
+
+import com.google.common.collect.Multimap;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.attribute.EntityAttribute;
+import net.minecraft.entity.attribute.EntityAttributeModifier;
+import net.minecraft.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The ability state of one living entity, attached to the entity itself.
+ * It is dropped together with the entity, so no state outlives a logout,
+ * and client and server entities of an integrated server never share it.
+ * Only access this from the thread that ticks the entity.
+ */
+public class AbilityState {
+    /**
+     * The item the entity was using during the last tick.
+     */
+    @Nullable
+    protected ItemStack activeItem;
+    protected final Map<ItemUseAbility, Multimap<EntityAttribute, EntityAttributeModifier>> appliedModifiers = new HashMap<>();
+
+    /**
+     * Returns the ability state of the entity, creating it on the first access.
+     */
+    public static AbilityState get(LivingEntity entity) {
+        Holder holder = (Holder) entity;
+        AbilityState state = holder.miapi$getAbilityState();
+        if (state == null) {
+            state = new AbilityState();
+            holder.miapi$setAbilityState(state);
+        }
+        return state;
+    }
+
+    @Nullable
+    public ItemStack getActiveItem() {
+        return activeItem;
+    }
+
+    public void setActiveItem(@Nullable ItemStack activeItem) {
+        this.activeItem = activeItem;
+    }
+
+    /**
+     * Stores the temporary attribute modifiers an ability added to the entity.
+     */
+    public void setAppliedModifiers(ItemUseAbility ability, Multimap<EntityAttribute, EntityAttributeModifier> modifiers) {
+        appliedModifiers.put(ability, modifiers);
+    }
+
+    /**
+     * Removes the temporary attribute modifiers an ability added to the entity.
+     *
+     * @return the removed modifiers, or null if the ability did not add any
+     */
+    @Nullable
+    public Multimap<EntityAttribute, EntityAttributeModifier> removeAppliedModifiers(ItemUseAbility ability) {
+        return appliedModifiers.remove(ability);
+    }
+
+    /**
+     * Implemented on {@link LivingEntity} to attach the state to it.
+     */
+    public interface Holder {
+        @Nullable
+        AbilityState miapi$getAbilityState();
+
+        void miapi$setAbilityState(@Nullable AbilityState state);
+    }
+}
@@ -12,17 +12,12 @@ import net.minecraft.util.TypedActionResult;
 import net.minecraft.util.UseAction;
 import net.minecraft.world.World;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * The EntityAttributeAbility class is an abstract implementation of the ItemUseAbility interface.
  * It provides functionality to give the player attributes while holding right-click.
  * Extend this class and implement the getAttributes() method to define the attributes to be applied.
  */
 public abstract class EntityAttributeAbility implements ItemUseDefaultCooldownAbility, ItemUseMinHoldAbility {
-    Map<LivingEntity, Multimap<EntityAttribute, EntityAttributeModifier>> playerEntityMultimapMap = new HashMap<>();
-
     /**
      * Get the attributes and modifiers to be applied for the specified item stack.
      *
@@ -39,7 +34,7 @@ public abstract class EntityAttributeAbility implements ItemUseDefaultCooldownAb
         attributeAttributePropertyMultimap.forEach((attribute, attributeModifier) -> {
         });
         user.getAttributes().addTemporaryModifiers(attributeAttributePropertyMultimap);
-        playerEntityMultimapMap.put(user, attributeAttributePropertyMultimap);
+        AbilityState.get(user).setAppliedModifiers(this, attributeAttributePropertyMultimap);
         return TypedActionResult.consume(itemStack);
     }
 
@@ -47,7 +42,7 @@ public abstract class EntityAttributeAbility implements ItemUseDefaultCooldownAb
         if(livingEntity instanceof PlayerEntity playerEntity){
             playerEntity.incrementStat(Stats.USED.getOrCreateStat(itemStack.getItem()));
         }
-        Multimap<EntityAttribute, EntityAttributeModifier> map = playerEntityMultimapMap.get(livingEntity);
+        Multimap<EntityAttribute, EntityAttributeModifier> map = AbilityState.get(livingEntity).removeAppliedModifiers(this);
         if (map != null) {
             livingEntity.getAttributes().removeModifiers(map);
         }
@@ -17,7 +17,7 @@ import smartin.miapi.modules.properties.AbilityMangerProperty;
 import smartin.miapi.modules.properties.AbilityProperty;
 import smartin.miapi.registries.MiapiRegistry;
 
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -27,23 +27,23 @@ import java.util.WeakHashMap;
  * This class then checks all provided abilites and delegates the calls from the {@link net.minecraft.item.Item} to the {@link ItemUseAbility}
  */
 public class ItemAbilityManager {
-    private static final Map<PlayerEntity, ItemStack> playerActiveItems = new HashMap<>();
-    private static final Map<PlayerEntity, ItemStack> playerActiveItemsClient = new HashMap<>();
     public static final MiapiRegistry<ItemUseAbility> useAbilityRegistry = MiapiRegistry.getInstance(ItemUseAbility.class);
     private static final EmptyAbility emptyAbility = new EmptyAbility();
-    private static final Map<ItemStack, ItemUseAbility> abilityMap = new WeakHashMap<>();
+    /**
+     * The ability each stack is currently used with, the item callbacks that read it do not know the using entity.
+     * {@link ItemStack} has no equals, so stacks are compared by identity and entries vanish with their stack.
+     * Client and server thread of an integrated server both access this map.
+     */
+    private static final Map<ItemStack, ItemUseAbility> abilityMap = Collections.synchronizedMap(new WeakHashMap<>());
 
     public static void setup() {
         TickEvent.PLAYER_PRE.register((playerEntity) -> {
-            Map<PlayerEntity, ItemStack> activeItems = playerActiveItems;
-            if (playerEntity.getWorld().isClient)
-                activeItems = playerActiveItemsClient;
-
-            ItemStack oldItem = activeItems.get(playerEntity);
+            AbilityState state = AbilityState.get(playerEntity);
+            ItemStack oldItem = state.getActiveItem();
             ItemStack playerItem = playerEntity.getActiveItem();
 
             if (playerItem != null && !playerItem.equals(oldItem)) {
-                activeItems.put(playerEntity, playerItem);
+                state.setActiveItem(playerItem);
                 if (oldItem != null) {
                     ItemUseAbility ability = getAbility(oldItem);
                     ability.onStoppedHolding(oldItem, playerEntity.getWorld(), playerEntity);
@@ -136,7 +136,7 @@ public class ItemAbilityManager {
             }
         });
         abilityMap.put(stack, ability);
-        return getAbility(stack).useOnEntity(stack, user, entity, hand);
+        return ability.useOnEntity(stack, user, entity, hand);
     }
 
     public static ActionResult useOnBlock(ItemUsageContext context) {
@@ -152,7 +152,7 @@ public class ItemAbilityManager {
             }
         });
         abilityMap.put(context.getStack(), ability);
-        return getAbility(context.getStack()).useOnBlock(context);
+        return ability.useOnBlock(context);
     }
 
     public interface AbilityHitContext {
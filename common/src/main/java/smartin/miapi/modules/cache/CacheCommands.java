@@ -57,6 +57,7 @@ public class CacheCommands {
     public static void triggerServerReload(){
         ReloadEvents.reloadCounter++;
         Map<String, String> cacheDatapack = new LinkedHashMap<>(ReloadEvents.DATA_PACKS);
+        CacheDependencyTracker.requireFullInvalidation();
         ReloadEvents.START.fireEvent(false);
         ReloadEvents.DataPackLoader.trigger(cacheDatapack);
         ReloadEvents.MAIN.fireEvent(false);
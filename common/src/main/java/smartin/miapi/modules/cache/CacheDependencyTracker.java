@@ -0,0 +1,113 @@
+package smartin.miapi.modules.cache;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.Nullable;
+import smartin.miapi.Miapi;
+import smartin.miapi.datapack.ReloadEvents;
+
+import java.util.*;
+
+/**
+ * Tracks which modules and materials changed between two data pack loads, so a reload
+ * only has to drop the {@link ModularItemCache} entries built from them.
+ * Changes the tracker cannot attribute to single modules or materials, like synergies or injectors,
+ * fall back to discarding the whole cache. So do reloads without any tracked change, as they may have changed
+ * tags or other data outside the Miapi folders that cached values depend on.
+ */
+public class CacheDependencyTracker {
+    protected static final Map<String, String> moduleFolders = Map.of(
+            "modules", "name",
+            "module_extensions", "name");
+    protected static final Map<String, String> materialFolders = Map.of(
+            "materials", "key",
+            "material_extensions", "key");
+
+    @Nullable
+    protected static Map<String, String> previousDataPacks = null;
+    protected static final Set<String> changedModules = new HashSet<>();
+    protected static final Set<String> changedMaterials = new HashSet<>();
+    protected static boolean fullInvalidation = true;
+
+    public static void setup() {
+        ReloadEvents.DataPackLoader.subscribe(CacheDependencyTracker::onDataPacks);
+    }
+
+    protected static synchronized void onDataPacks(Map<String, String> dataPacks) {
+        Map<String, String> current = new HashMap<>(dataPacks);
+        if (previousDataPacks == null) {
+            fullInvalidation = true;
+        } else if (!fullInvalidation) {
+            Set<String> paths = new HashSet<>(previousDataPacks.keySet());
+            paths.addAll(current.keySet());
+            for (String path : paths) {
+                String oldData = previousDataPacks.get(path);
+                String newData = current.get(path);
+                if (!Objects.equals(oldData, newData)) {
+                    boolean trackedOld = track(path, oldData);
+                    boolean trackedNew = track(path, newData);
+                    if (!trackedOld || !trackedNew) {
+                        fullInvalidation = true;
+                        break;
+                    }
+                }
+            }
+        }
+        previousDataPacks = current;
+    }
+
+    /**
+     * Makes the next reload discard the whole cache, for reloads that change more than the data packs.
+     */
+    public static synchronized void requireFullInvalidation() {
+        fullInvalidation = true;
+    }
+
+    /**
+     * Records the module or material defined by the given data.
+     *
+     * @return false if the change cannot be attributed and the whole cache has to be discarded
+     */
+    protected static boolean track(String path, @Nullable String data) {
+        if (data == null) {
+            return true;
+        }
+        String folder = path.substring(0, Math.max(0, path.indexOf('/')));
+        Set<String> target;
+        String idKey;
+        if (moduleFolders.containsKey(folder)) {
+            target = changedModules;
+            idKey = moduleFolders.get(folder);
+        } else if (materialFolders.containsKey(folder)) {
+            target = changedMaterials;
+            idKey = materialFolders.get(folder);
+        } else {
+            return false;
+        }
+        try {
+            JsonElement element = JsonParser.parseString(data);
+            if (element instanceof JsonObject object && object.get(idKey) != null && object.get(idKey).isJsonPrimitive()) {
+                target.add(object.get(idKey).getAsString());
+                return true;
+            }
+        } catch (Exception e) {
+            Miapi.LOGGER.warn("Could not track changes of " + path, e);
+        }
+        return false;
+    }
+
+    /**
+     * Invalidates the cache according to the changes since the last reload and resets the tracked changes.
+     */
+    public static synchronized void onReloadEnd() {
+        if (fullInvalidation || changedModules.isEmpty() && changedMaterials.isEmpty()) {
+            ModularItemCache.discardCache();
+        } else {
+            ModularItemCache.invalidate(Set.copyOf(changedModules), Set.copyOf(changedMaterials));
+        }
+        fullInvalidation = false;
+        changedModules.clear();
+        changedMaterials.clear();
+    }
+}
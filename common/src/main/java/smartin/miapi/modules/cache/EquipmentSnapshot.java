@@ -0,0 +1,117 @@
+package smartin.miapi.modules.cache;
+
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The equipment of a living entity with values aggregated over all of its slots.
+ * Values are computed on the first read and kept until the equipment changes,
+ * so listeners that run on every hit or tick do not go over all slots and modules again.
+ * A snapshot is dropped by the equipment change hook of the entity or when the {@link ModularItemCache} is cleared.
+ * On the client, where the hook does not run, it is dropped once a slot holds another stack.
+ * Stacks modified in place are detected through their {@link ModularItemCache.CacheKey}.
+ */
+public class EquipmentSnapshot {
+    protected static final EquipmentSlot[] SLOTS = EquipmentSlot.values();
+    protected static volatile int generation = 0;
+
+    protected final ItemStack[] stacks = new ItemStack[SLOTS.length];
+    protected final boolean[] empty = new boolean[SLOTS.length];
+    protected final ModularItemCache.CacheKey[] keys = new ModularItemCache.CacheKey[SLOTS.length];
+    protected final int snapshotGeneration;
+    protected final Map<Object, Object> values = new HashMap<>();
+
+    protected EquipmentSnapshot(LivingEntity entity) {
+        snapshotGeneration = generation;
+        for (EquipmentSlot slot : SLOTS) {
+            ItemStack stack = entity.getEquippedStack(slot);
+            stacks[slot.ordinal()] = stack;
+            empty[slot.ordinal()] = stack.isEmpty();
+            keys[slot.ordinal()] = ModularItemCache.getKeyFor(stack);
+        }
+    }
+
+    /**
+     * Returns the current snapshot of the entity, creating a new one if the old one is outdated.
+     */
+    public static EquipmentSnapshot get(LivingEntity entity) {
+        Holder holder = (Holder) entity;
+        EquipmentSnapshot snapshot = holder.miapi$getEquipmentSnapshot();
+        if (snapshot == null || !snapshot.isValid(entity)) {
+            snapshot = new EquipmentSnapshot(entity);
+            holder.miapi$setEquipmentSnapshot(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Drops the snapshot of the entity, called when its equipment changed.
+     */
+    public static void invalidate(LivingEntity entity) {
+        ((Holder) entity).miapi$setEquipmentSnapshot(null);
+    }
+
+    /**
+     * Drops the snapshots of all entities, called when the {@link ModularItemCache} is cleared.
+     */
+    public static void invalidateAll() {
+        generation++;
+    }
+
+    public ItemStack getStack(EquipmentSlot slot) {
+        return stacks[slot.ordinal()];
+    }
+
+    /**
+     * @return the stacks of all slots, in the order of {@link EquipmentSlot#values()}
+     */
+    public List<ItemStack> getStacks() {
+        return Arrays.asList(stacks);
+    }
+
+    /**
+     * Returns the value stored for this key, computing it from the snapshot if it is missing.
+     * Properties use themselves as key.
+     *
+     * @param key      the key of the value
+     * @param supplier computes the value, this must only depend on the equipped stacks
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Function<EquipmentSnapshot, T> supplier) {
+        Object value = values.get(key);
+        if (value == null) {
+            value = supplier.apply(this);
+            values.put(key, value);
+        }
+        return (T) value;
+    }
+
+    protected boolean isValid(LivingEntity entity) {
+        if (snapshotGeneration != generation) {
+            return false;
+        }
+        for (EquipmentSlot slot : SLOTS) {
+            ItemStack stack = entity.getEquippedStack(slot);
+            if (stack != stacks[slot.ordinal()] || stack.isEmpty() != empty[slot.ordinal()] ||
+                !Objects.equals(ModularItemCache.getKeyFor(stack), keys[slot.ordinal()])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Implemented on {@link LivingEntity} to attach the snapshot to it.
+     */
+    public interface Holder {
+        @Nullable
+        EquipmentSnapshot miapi$getEquipmentSnapshot();
+
+        void miapi$setEquipmentSnapshot(@Nullable EquipmentSnapshot snapshot);
+    }
+}
@@ -1,24 +1,23 @@
 package smartin.miapi.modules.cache;
 
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NbtCompound;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import smartin.miapi.Environment;
 import smartin.miapi.Miapi;
 import smartin.miapi.client.atlas.MaterialSpriteManager;
-import smartin.miapi.client.model.ModelTransformer;
+import smartin.miapi.client.model.DynamicBakery;
+import smartin.miapi.client.renderer.GuiIconCache;
 import smartin.miapi.datapack.ReloadEvents;
 import smartin.miapi.item.modular.ModularItem;
 import smartin.miapi.item.modular.VisualModularItem;
+import smartin.miapi.modules.ItemModule;
+import smartin.miapi.modules.material.MaterialProperty;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
-import java.util.WeakHashMap;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -26,46 +25,89 @@ import java.util.function.Function;
 
 import static smartin.miapi.events.MiapiEvents.CACHE_CLEAR_EVENT;
 
+/**
+ * Caches data resolved from the modules of an ItemStack.
+ * Entries are keyed by a 128-bit hash of the item and its module-relevant NBT, so identical items
+ * held in different stacks share one resolved {@link Cache}. The key of a stack is computed once and
+ * remembered until {@link #clearUUIDFor(ItemStack)} signals that the stack was modified.
+ */
 public class ModularItemCache {
-    protected static Map<String, CacheObjectSupplier> supplierMap = new HashMap<>();
+    protected static final Map<String, CacheSlot<?>> slotMap = new ConcurrentHashMap<>();
+    protected static final List<CacheSlot<?>> slots = new ArrayList<>();
     public static final long CACHE_SIZE = 1000;
     public static final long CACHE_LIFETIME = 2;
     public static final TimeUnit CACHE_LIFETIME_UNIT = TimeUnit.MINUTES;
-    protected static final LoadingCache<UUID, Cache> cache = CacheBuilder.newBuilder()
+    /**
+     * Top level NBT keys that do not influence any cached module data.
+     * Stacks that only differ in their damage share one entry, which keeps the first stack it was created from,
+     * so suppliers must not read the damage or anything derived from it. Values that do depend on it have to be computed
+     * from the live stack, see {@link smartin.miapi.modules.properties.AttributeProperty#damageDependent}.
+     */
+    public static final Set<String> IGNORED_NBT_KEYS = new HashSet<>(Set.of("Damage"));
+    protected static final com.google.common.cache.Cache<CacheKey, Cache> cache = CacheBuilder.newBuilder()
             .maximumSize(CACHE_SIZE)
             .expireAfterAccess(CACHE_LIFETIME, CACHE_LIFETIME_UNIT)
-            .build(new CacheLoader<>() {
-                public @NotNull Cache load(@NotNull UUID key) {
-                    return new Cache(key, net.minecraft.item.ItemStack.EMPTY);
-                }
-            });
-    protected static Map<ItemStack, UUID> lookUpTable = new WeakHashMap<>();
-    protected static final LoadingCache<NbtCompound, UUID> nbtCache = CacheBuilder.newBuilder()
-            .maximumSize(CACHE_SIZE)
-            .expireAfterAccess(CACHE_LIFETIME, CACHE_LIFETIME_UNIT)
-            .build(new CacheLoader<>() {
-                public @NotNull UUID load(@NotNull NbtCompound key) {
-                    return ModularItemCache.getMissingUUID();
-                }
-            });
+            .build();
+    protected static final Map<ItemStack, CacheKey> lookUpTable = Collections.synchronizedMap(new WeakHashMap<>());
 
     public static void setSupplier(String key, CacheObjectSupplier supplier) {
-        supplierMap.put(key, supplier);
+        createSlot(key, supplier::apply);
+    }
+
+    /**
+     * Registers a typed cache slot. Each slot gets a dense index, cache entries store their values in an array indexed by it.
+     * Registering an already known key replaces its supplier and keeps the index.
+     *
+     * @param key      the unique key of this slot
+     * @param supplier computes the value from the ItemStack
+     * @return the slot to use for lookups
+     */
+    public static <T> CacheSlot<T> createSlot(String key, Function<ItemStack, T> supplier) {
+        return createSlot(key, supplier, false);
+    }
+
+    /**
+     * Registers a typed cache slot.
+     *
+     * @param key      the unique key of this slot
+     * @param supplier computes the value from the ItemStack
+     * @param eager    if true the value is computed as soon as a new cache entry is created
+     * @return the slot to use for lookups
+     */
+    public static synchronized <T> CacheSlot<T> createSlot(String key, Function<ItemStack, T> supplier, boolean eager) {
+        CacheSlot<T> slot = (CacheSlot<T>) slotMap.get(key);
+        if (slot == null) {
+            slot = new CacheSlot<>(key, slots.size());
+            slots.add(slot);
+            slotMap.put(key, slot);
+        }
+        slot.supplier = supplier;
+        slot.eager = eager;
+        return slot;
     }
 
     @Nullable
     public static <T> T getRaw(ItemStack stack, String key) {
-        if (!ReloadEvents.isInReload() && !stack.isEmpty() && stack.getItem() instanceof VisualModularItem) {
-            Cache itemCache = find(stack);
-            return (T) itemCache.get(key);
+        CacheSlot<T> slot = (CacheSlot<T>) slotMap.get(key);
+        return slot == null ? null : getRaw(stack, slot);
+    }
+
+    @Nullable
+    public static <T> T getRaw(ItemStack stack, CacheSlot<T> slot) {
+        if (!stack.isEmpty() && stack.getItem() instanceof VisualModularItem) {
+            return lookup(stack, slot);
         }
         return null;
     }
 
     public static <T> T get(ItemStack stack, String key, T fallback) {
-        if (!ReloadEvents.isInReload() && !stack.isEmpty() && stack.getItem() instanceof ModularItem) {
-            Cache itemCache = find(stack);
-            T object = (T) itemCache.get(key);
+        CacheSlot<T> slot = (CacheSlot<T>) slotMap.get(key);
+        return slot == null ? fallback : get(stack, slot, fallback);
+    }
+
+    public static <T> T get(ItemStack stack, CacheSlot<T> slot, T fallback) {
+        if (!stack.isEmpty() && stack.getItem() instanceof ModularItem) {
+            T object = lookup(stack, slot);
             if (object == null) {
                 return fallback;
             }
@@ -75,9 +117,13 @@ public class ModularItemCache {
     }
 
     public static <T> T getVisualOnlyCache(ItemStack stack, String key, T fallback) {
-        if (!ReloadEvents.isInReload() && !stack.isEmpty() && stack.getItem() instanceof VisualModularItem) {
-            Cache itemCache = find(stack);
-            T object = (T) itemCache.get(key);
+        CacheSlot<T> slot = (CacheSlot<T>) slotMap.get(key);
+        return slot == null ? fallback : getVisualOnlyCache(stack, slot, fallback);
+    }
+
+    public static <T> T getVisualOnlyCache(ItemStack stack, CacheSlot<T> slot, T fallback) {
+        if (!stack.isEmpty() && stack.getItem() instanceof VisualModularItem) {
+            T object = lookup(stack, slot);
             if (object == null) {
                 return fallback;
             }
@@ -86,76 +132,189 @@ public class ModularItemCache {
         return fallback;
     }
 
-    public static void discardCache() {
+    /**
+     * Outside a reload the value is resolved and cached. During a reload nothing new is resolved,
+     * as the registries are incomplete, but values cached before the reload are still served.
+     */
+    @Nullable
+    protected static <T> T lookup(ItemStack stack, CacheSlot<T> slot) {
+        if (ReloadEvents.isInReload()) {
+            Cache itemCache = findExisting(stack);
+            return itemCache == null ? null : itemCache.getIfPresent(slot);
+        }
+        return find(stack).get(slot);
+    }
+
+    /**
+     * Drops only the entries built from changed data, see {@link CacheDependencyTracker}.
+     * An entry is dropped if any of its modules is one of the changed modules, is no longer registered
+     * or uses one of the changed materials. Retained entries get a copy of their module tree bound to the reloaded {@link ItemModule}s,
+     * the shared tree itself is never modified. All other slots of retained entries are cleared, so values derived from the old tree,
+     * tags or other reloaded data are resolved again.
+     *
+     * @param changedModules   names of added, changed or removed modules
+     * @param changedMaterials keys of added, changed or removed materials
+     */
+    public static void invalidate(Set<String> changedModules, Set<String> changedMaterials) {
         CACHE_CLEAR_EVENT.invoker().onReload(Environment.isClient());
-        cache.cleanUp();
-        cache.invalidateAll();
-        if (Environment.isClient()) {
-            ModelTransformer.clearCaches();
+        EquipmentSnapshot.invalidateAll();
+        CacheSlot<ItemModule.ModuleInstance> moduleSlot = ItemModule.MODULE_SLOT;
+        boolean isClient = Environment.isClient();
+        int removed = 0;
+        for (Map.Entry<CacheKey, Cache> entry : cache.asMap().entrySet()) {
+            ItemModule.ModuleInstance root = entry.getValue().getIfPresent(moduleSlot);
+            ItemModule.ModuleInstance rebound = root == null ? null : rebind(root, changedModules, changedMaterials);
+            if (rebound == null) {
+                cache.invalidate(entry.getKey());
+                removed++;
+            } else {
+                entry.getValue().reset(moduleSlot, rebound);
+            }
+        }
+        if (removed > 0) {
+            lookUpTable.values().removeIf(key -> cache.getIfPresent(key) == null);
+        }
+        if (isClient) {
+            DynamicBakery.clearBakedModels();
             MaterialSpriteManager.clear();
+            GuiIconCache.clear();
         }
+        Miapi.LOGGER.info("Invalidated " + removed + " cached items after reload, kept " + cache.size());
     }
 
+    /**
+     * @return a copy of the tree bound to the reloaded modules, or null if the tree depends on changed data and has to be resolved again
+     */
     @Nullable
-    public static UUID getUUIDFor(ItemStack stack) {
-        try {
-            if (stack.getItem() instanceof VisualModularItem && stack.hasNbt()) {
-                return lookUpTable.getOrDefault(stack, nbtCache.get(stack.getOrCreateNbt()));
+    protected static ItemModule.ModuleInstance rebind(ItemModule.ModuleInstance root, Set<String> changedModules, Set<String> changedMaterials) {
+        List<ItemModule.ModuleInstance> instances = root.allSubModules();
+        List<ItemModule> reloaded = new ArrayList<>(instances.size());
+        for (ItemModule.ModuleInstance instance : instances) {
+            String name = instance.module.getName();
+            if (changedModules.contains(name)) {
+                return null;
             }
-            return null;
-        } catch (ExecutionException e) {
-            throw new RuntimeException(e);
+            ItemModule module = ItemModule.moduleRegistry.get(name);
+            if (module == null) {
+                if (!"empty".equals(name)) {
+                    return null;
+                }
+                module = instance.module;
+            }
+            if (!changedMaterials.isEmpty()) {
+                String material = getMaterialKey(instance);
+                if (material != null && changedMaterials.contains(material)) {
+                    return null;
+                }
+            }
+            reloaded.add(module);
+        }
+        ItemModule.ModuleInstance copy = root.copy();
+        List<ItemModule.ModuleInstance> copies = copy.allSubModules();
+        for (int i = 0; i < copies.size(); i++) {
+            copies.get(i).module = reloaded.get(i);
+            copies.get(i).rawProperties = instances.get(i).rawProperties;
         }
+        return copy;
     }
 
-    public static void setUUIDFor(ItemStack stack, UUID uuid) {
-        if (stack.getItem() instanceof VisualModularItem) {
-            if (stack.hasNbt()) {
-                nbtCache.put(stack.getOrCreateNbt().copy(), uuid);
-                lookUpTable.put(stack, uuid);
+    @Nullable
+    protected static String getMaterialKey(ItemModule.ModuleInstance instance) {
+        JsonElement element = null;
+        if (instance.rawProperties != null) {
+            element = instance.rawProperties.get(MaterialProperty.property);
+        }
+        if (element == null) {
+            String properties = instance.moduleData.get("properties");
+            if (properties != null) {
+                JsonObject object = Miapi.gson.fromJson(properties, JsonObject.class);
+                element = object == null ? null : object.get(MaterialProperty.KEY);
             }
-        } else {
-            Miapi.LOGGER.error("this shouldn't not be called");
         }
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
     }
 
-    public static void clearUUIDFor(ItemStack stack) {
+    public static void discardCache() {
+        CACHE_CLEAR_EVENT.invoker().onReload(Environment.isClient());
+        cache.cleanUp();
+        cache.invalidateAll();
+        lookUpTable.clear();
+        EquipmentSnapshot.invalidateAll();
+        if (Environment.isClient()) {
+            DynamicBakery.clearBakedModels();
+            MaterialSpriteManager.clear();
+            GuiIconCache.clear();
+        }
+    }
+
+    /**
+     * Returns the content key for this stack, computing it if the stack was not seen since its last modification.
+     *
+     * @param stack the ItemStack
+     * @return the key of the cache entry of this stack, or null if it is not a modular item
+     */
+    @Nullable
+    public static CacheKey getKeyFor(ItemStack stack) {
         if (stack.getItem() instanceof VisualModularItem && stack.hasNbt()) {
-            nbtCache.invalidate(stack.getOrCreateNbt());
-            UUID uuid = getUUIDFor(stack);
-            cache.invalidate(uuid);
+            CacheKey key = lookUpTable.get(stack);
+            if (key == null || key.item() != stack.getItem()) {
+                key = CacheKey.of(stack);
+                lookUpTable.put(stack, key);
+            }
+            return key;
         }
+        return null;
+    }
+
+    /**
+     * Marks the stack as modified, its content key is recomputed on the next access.
+     * Other stacks with the previous content keep sharing the old cache entry.
+     * The name is kept from the previous UUID based cache for compatibility.
+     *
+     * @param stack the modified ItemStack
+     */
+    public static void clearUUIDFor(ItemStack stack) {
+        lookUpTable.remove(stack);
     }
 
     protected static Cache find(ItemStack stack) {
-        //because i cant copy the Itemstack and the cache needs to refresh properly the check has been moved to nbt only.
-        UUID lookUpUUId = getUUIDFor(stack);
-        if (lookUpUUId == null) {
-            lookUpUUId = getMissingUUID();
+        CacheKey key = getKeyFor(stack);
+        if (key == null) {
+            key = CacheKey.of(stack);
         }
-        UUID uuid = lookUpUUId;
+        CacheKey cacheKey = key;
+        Cache entry;
         try {
-            Cache cacheEntry = cache.get(uuid, () -> new Cache(uuid, stack));
-            if (ItemStack.areItemsEqual(cacheEntry.stack, stack)) {
-                return cacheEntry;
-            } else {
-                UUID newUUID = getMissingUUID();
-                return cache.get(newUUID, () -> new Cache(newUUID, stack));
-            }
+            entry = cache.get(cacheKey, () -> new Cache(cacheKey, stack.copy()));
         } catch (ExecutionException ignored) {
-            UUID uuid1 = getMissingUUID();
-            Cache cache1 = new Cache(uuid1, stack);
-            cache.put(uuid1, cache1);
-            return cache1;
+            entry = new Cache(cacheKey, stack.copy());
+            cache.put(cacheKey, entry);
         }
+        entry.populateEager();
+        return entry;
     }
 
-    protected static UUID getMissingUUID() {
-        UUID uuid;
-        do {
-            uuid = UUID.randomUUID();
-        } while (cache.getIfPresent(uuid) != null);
-        return uuid;
+    /**
+     * Like {@link #find(ItemStack)}, but never creates an entry.
+     */
+    @Nullable
+    protected static Cache findExisting(ItemStack stack) {
+        CacheKey key = lookUpTable.get(stack);
+        if (key == null || key.item() != stack.getItem()) {
+            key = CacheKey.of(stack);
+        }
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Returns the value of the slot only if the stack was looked up before and the value is already resolved.
+     * Unlike the other lookups this never calls {@link ItemStack#getItem()}, so it can be used from hooks into it.
+     */
+    @Nullable
+    public static <T> T getIfResolved(ItemStack stack, CacheSlot<T> slot) {
+        CacheKey key = lookUpTable.get(stack);
+        Cache entry = key == null ? null : cache.getIfPresent(key);
+        return entry == null ? null : entry.getIfPresent(slot);
     }
 
     public interface CacheObjectSupplier extends Function<ItemStack, Object> {
@@ -163,35 +322,119 @@ public class ModularItemCache {
         Object apply(ItemStack stack);
     }
 
+    /**
+     * Identifies the resolved data of an item by its type and a 128-bit hash of its NBT.
+     */
+    public record CacheKey(Item item, long high, long low) {
+        public static CacheKey of(ItemStack stack) {
+            return new CacheKey(
+                    stack.getItem(),
+                    NbtContentHash.hash(stack.getNbt(), IGNORED_NBT_KEYS, NbtContentHash.SEED_HIGH),
+                    NbtContentHash.hash(stack.getNbt(), IGNORED_NBT_KEYS, NbtContentHash.SEED_LOW));
+        }
+    }
+
+    /**
+     * A typed key into the item cache, registered through {@link #createSlot(String, Function, boolean)}.
+     *
+     * @param <T> the type of the cached value
+     */
+    public static final class CacheSlot<T> {
+        public final String key;
+        public final int index;
+        protected Function<ItemStack, T> supplier;
+        protected boolean eager;
+
+        protected CacheSlot(String key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+
     protected static class Cache {
-        protected Map<String, Object> map = new ConcurrentHashMap<>();
-        public UUID uuid;
+        protected volatile Object[] values = new Object[slots.size()];
+        protected volatile boolean populated = false;
+        public CacheKey key;
         public ItemStack stack;
 
-        public Cache(UUID uuid, ItemStack stack) {
-            this.uuid = uuid;
+        public Cache(CacheKey key, ItemStack stack) {
+            this.key = key;
             this.stack = stack;
-            setUUIDFor(stack, uuid);
+        }
+
+        /**
+         * Computes all eager slots once, this happens outside the cache loader so suppliers may access the cache themselves.
+         */
+        protected void populateEager() {
+            if (!populated) {
+                populated = true;
+                for (int i = 0; i < slots.size(); i++) {
+                    CacheSlot<?> slot = slots.get(i);
+                    if (slot.eager) {
+                        get(slot);
+                    }
+                }
+            }
+        }
+
+        public <T> void set(CacheSlot<T> slot, T object) {
+            ensureCapacity(slot.index)[slot.index] = object;
         }
 
         public void set(String key, Object object) {
-            map.put(key, object);
+            CacheSlot<Object> slot = (CacheSlot<Object>) slotMap.get(key);
+            if (slot != null) {
+                set(slot, object);
+            }
         }
 
-        public Object get(String key) {
-            if (map.containsKey(key)) {
-                return map.get(key);
-            } else {
-                CacheObjectSupplier supplier = supplierMap.get(key);
-                if (supplier != null) {
-                    Object cached = supplier.apply(stack);
-                    if (cached != null) {
-                        map.put(key, cached);
-                    }
-                    return cached;
+        public <T> T get(CacheSlot<T> slot) {
+            Object[] current = values;
+            if (slot.index < current.length && current[slot.index] != null) {
+                return (T) current[slot.index];
+            }
+            if (slot.supplier != null) {
+                T cached = slot.supplier.apply(stack);
+                if (cached != null) {
+                    set(slot, cached);
                 }
+                return cached;
             }
             return null;
         }
+
+        @Nullable
+        public <T> T getIfPresent(CacheSlot<T> slot) {
+            Object[] current = values;
+            return slot.index < current.length ? (T) current[slot.index] : null;
+        }
+
+        /**
+         * Clears every slot and keeps only the given value, eager slots are computed again on the next lookup.
+         */
+        protected synchronized <T> void reset(CacheSlot<T> kept, T object) {
+            Object[] fresh = new Object[Math.max(values.length, slots.size())];
+            fresh[kept.index] = object;
+            values = fresh;
+            populated = false;
+        }
+
+        public Object get(String key) {
+            CacheSlot<?> slot = slotMap.get(key);
+            return slot == null ? null : get(slot);
+        }
+
+        protected Object[] ensureCapacity(int index) {
+            Object[] current = values;
+            if (index < current.length) {
+                return current;
+            }
+            synchronized (this) {
+                if (index >= values.length) {
+                    values = Arrays.copyOf(values, Math.max(index + 1, slots.size()));
+                }
+                return values;
+            }
+        }
     }
 }
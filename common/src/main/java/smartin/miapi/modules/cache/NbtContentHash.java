@@ -0,0 +1,72 @@
+package smartin.miapi.modules.cache;
+
+import net.minecraft.nbt.AbstractNbtList;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+
+import java.util.Set;
+
+/**
+ * Computes stable 64-bit hashes of NBT content.
+ * Compound entries are combined order-independently, so two equal compounds always hash the same
+ * regardless of their internal map layout. Two differently seeded hashes form the 128-bit cache key.
+ */
+public class NbtContentHash {
+    public static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+    public static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     * Hashes a compound while skipping the given top-level keys.
+     *
+     * @param compound    the compound to hash, may be null
+     * @param ignoredKeys top-level keys that do not influence the cached data
+     * @param seed        the hash seed
+     * @return the content hash
+     */
+    public static long hash(NbtCompound compound, Set<String> ignoredKeys, long seed) {
+        if (compound == null) {
+            return mix(seed);
+        }
+        long hash = seed;
+        for (String key : compound.getKeys()) {
+            if (!ignoredKeys.contains(key)) {
+                hash += mix(hashString(key, seed) * 31 + hash(compound.get(key), seed));
+            }
+        }
+        return mix(hash ^ NbtElement.COMPOUND_TYPE);
+    }
+
+    public static long hash(NbtElement element, long seed) {
+        if (element == null) {
+            return mix(seed);
+        }
+        if (element instanceof NbtCompound compound) {
+            return hash(compound, Set.of(), seed);
+        }
+        if (element instanceof AbstractNbtList<?> list) {
+            long hash = seed ^ element.getType();
+            for (NbtElement entry : list) {
+                hash = mix(hash * 31 + hash(entry, seed));
+            }
+            return mix(hash + list.size());
+        }
+        return mix(hashString(element.asString(), seed) * 31 + element.getType());
+    }
+
+    public static long hashString(String string, long seed) {
+        long hash = seed;
+        for (int i = 0; i < string.length(); i++) {
+            hash = (hash ^ string.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash + string.length());
+    }
+
+    /**
+     * Finalizer of the SplitMix64 generator, spreads the bits of the accumulated hash.
+     */
+    protected static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -2,7 +2,6 @@ package smartin.miapi.modules.material;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.mojang.blaze3d.systems.RenderSystem;
 import dev.architectury.event.events.common.LifecycleEvent;
 import net.minecraft.client.MinecraftClient;
@@ -58,9 +57,8 @@ public class MaterialProperty implements ModuleProperty {
                 return "";
             }
         });
-        Miapi.registerReloadHandler(ReloadEvents.MAIN, "materials", materials, (isClient, path, data) -> {
-            JsonParser parser = new JsonParser();
-            JsonObject obj = parser.parse(data).getAsJsonObject();
+        Miapi.registerJsonReloadHandler(ReloadEvents.MAIN, "materials", materials, (isClient, path, data) -> {
+            JsonObject obj = data.getAsJsonObject();
             JsonMaterial material = new JsonMaterial(obj, isClient);
             if (materials.containsKey(material.getKey())) {
                 Miapi.LOGGER.warn("Overwriting Materials isnt 100% safe. The ordering might be wrong, please set the overwrite material in the same path as the origin Material" + path + " is overwriting " + material.getKey());
@@ -69,11 +67,10 @@ public class MaterialProperty implements ModuleProperty {
         }, -2f);
 
 
-        Miapi.registerReloadHandler(ReloadEvents.MAIN, "material_extensions", (isClient) -> {
+        Miapi.registerJsonReloadHandler(ReloadEvents.MAIN, "material_extensions", (isClient) -> {
 
         }, (isClient, path, data) -> {
-            JsonParser parser = new JsonParser();
-            JsonObject obj = parser.parse(data).getAsJsonObject();
+            JsonObject obj = data.getAsJsonObject();
             Material material = materials.get(obj.get("key").getAsString());
             if (material != null) {
                 if (material instanceof JsonMaterial jsonMaterial) {
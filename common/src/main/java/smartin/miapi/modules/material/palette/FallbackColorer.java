@@ -18,6 +18,11 @@ public class FallbackColorer extends SpritePixelReplacer {
         return false;
     }
 
+    @Override
+    public boolean supportsAsyncRecolor() {
+        return true;
+    }
+
     @Override
     public Color getAverageColor() {
         return Color.WHITE;
@@ -13,6 +13,7 @@ import net.minecraft.client.texture.SpriteContents;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.ColorHelper;
 import smartin.miapi.Miapi;
+import smartin.miapi.client.atlas.GeneratedPaletteCache;
 import smartin.miapi.client.renderer.NativeImageGetter;
 import smartin.miapi.modules.material.Material;
 
@@ -44,7 +45,29 @@ public class GrayscalePaletteColorer extends SpritePixelReplacer {
         BakedModel itemModel = MinecraftClient.getInstance().getItemRenderer().getModel(mainIngredient, MinecraftClient.getInstance().world, null, 0);
         SpriteContents contents = itemModel.getParticleSprite().getContents();
         NativeImageGetter.ImageHolder image = NativeImageGetter.getFromContents(contents);
-        return new GrayscalePaletteColorer(material, createImagePalette(image));
+        int[] colors = GeneratedPaletteCache.getOrCreate(image, () -> {
+            Map<Integer, Color> colorsMap = createImagePalette(image);
+            interpolateColorsMap(colorsMap, MaterialRenderControllers.interpolateFiller);
+            return createColorsArray(colorsMap);
+        });
+        return new GrayscalePaletteColorer(material, colors);
+    }
+
+    /**
+     * Create a GrayscalePaletteColorer from an already interpolated array of 256 abgr colors
+     */
+    public GrayscalePaletteColorer(Material material, int[] colors) {
+        super(material);
+        Map<Integer, Color> colorsMap = new HashMap<>();
+        for (int i = 0; i < colors.length; i++) {
+            colorsMap.put(i, new Color(
+                    ColorHelper.Abgr.getRed(colors[i]),
+                    ColorHelper.Abgr.getGreen(colors[i]),
+                    ColorHelper.Abgr.getBlue(colors[i]),
+                    ColorHelper.Abgr.getAlpha(colors[i])));
+        }
+        averageColor = createAverageColor(colorsMap);
+        this.colors = colors;
     }
 
     public GrayscalePaletteColorer(Material material, Map<Integer, Color> colorsMap) {
@@ -118,6 +141,11 @@ public class GrayscalePaletteColorer extends SpritePixelReplacer {
         return false;
     }
 
+    @Override
+    public boolean supportsAsyncRecolor() {
+        return true;
+    }
+
     /**
      * Uses the filler function to fill in the empty space in the colors map
      */
@@ -12,7 +12,6 @@ import net.minecraft.client.texture.NativeImage;
 import net.minecraft.client.texture.Sprite;
 import net.minecraft.client.texture.SpriteContents;
 import net.minecraft.item.ItemStack;
-import net.minecraft.util.Identifier;
 import smartin.miapi.client.atlas.MaterialSpriteManager;
 import smartin.miapi.client.renderer.RescaledVertexConsumer;
 import smartin.miapi.modules.ItemModule;
@@ -57,6 +56,16 @@ public abstract class SpriteColorer implements MaterialRenderController {
      */
     public abstract NativeImage transform(SpriteContents originalSprite);
 
+    /**
+     * {@link SpritePixelReplacer}s that only depend on immutable state can recolor plain pixel buffers on a worker thread,
+     * see {@link SpritePixelReplacer#recolorPixels(int[], int, int)}. Other colorers and animated sprites are always recolored on the render thread.
+     *
+     * @return true if this colorer can recolor pixel buffers from any thread
+     */
+    public boolean supportsAsyncRecolor() {
+        return false;
+    }
+
     /**
      * Animated Materials will recolor every frame, use this carefully
      *
@@ -66,15 +75,23 @@ public abstract class SpriteColorer implements MaterialRenderController {
 
     @Environment(EnvType.CLIENT)
     public VertexConsumer getVertexConsumer(VertexConsumerProvider vertexConsumers, Sprite originalSprite, ItemStack stack, ItemModule.ModuleInstance moduleInstance, ModelTransformationMode mode) {
-        Identifier replaceId = MaterialSpriteManager.getMaterialSprite(originalSprite, material, this);
-        RenderLayer atlasRenderLayer = RenderLayer.getEntityTranslucentCull(replaceId);
+        MaterialSpriteManager.RecoloredSprite recolored = MaterialSpriteManager.getRecoloredSprite(originalSprite, material, this);
+        if (recolored == null) {
+            //still recoloring, render the original sprite until it is ready
+            return ItemRenderer.getDirectItemGlintConsumer(vertexConsumers, RenderLayer.getEntityTranslucentCull(originalSprite.getAtlasId()), true, false);
+        }
+        //sprites in the shared atlas all use the same render layer, so different materials are batched together
+        RenderLayer atlasRenderLayer = RenderLayer.getEntityTranslucentCull(recolored.texture());
         VertexConsumer atlasConsumer = ItemRenderer.getDirectItemGlintConsumer(vertexConsumers, atlasRenderLayer, true, false);
-        return getVertexConsumer(atlasConsumer, originalSprite);
+        RescaledVertexConsumer rescaled = getVertexConsumer(atlasConsumer, originalSprite);
+        rescaled.setTarget(recolored.minU(), recolored.minV(), recolored.maxU(), recolored.maxV());
+        return rescaled;
     }
 
     public static RescaledVertexConsumer getVertexConsumer(VertexConsumer vertexConsumer, Sprite sprite) {
         RescaledVertexConsumer rescaled = lookupMap.computeIfAbsent(sprite, (s) -> new RescaledVertexConsumer(vertexConsumer, sprite));
         rescaled.delegate = vertexConsumer;
+        rescaled.setTarget(0, 0, 1, 1);
         return rescaled;
     }
 
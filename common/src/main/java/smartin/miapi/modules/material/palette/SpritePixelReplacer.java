@@ -31,18 +31,40 @@ public abstract class SpritePixelReplacer extends SpriteColorer {
         }
         for (int x = 0; x < rawImage.getWidth(); x++) {
             for (int y = 0; y < rawImage.getHeight(); y++) {
-                int abgr = rawImage.getColor(x, y);
-                int opacity = ColorHelper.Abgr.getAlpha(abgr);
-                if (opacity < 5 && opacity > -1) {
-                    lastImage.setColor(x, y, 0);
-                } else {
-                    lastImage.setColor(x, y, getReplacementColor(x, y, abgr));
-                }
+                lastImage.setColor(x, y, recolorPixel(x, y, rawImage.getColor(x, y)));
             }
         }
         return lastImage;
     }
 
+    /**
+     * Recolors plain abgr pixels in row major order. This only calls {@link #getReplacementColor(int, int, int)},
+     * so it is safe off the render thread if {@link #supportsAsyncRecolor()} is true.
+     *
+     * @param abgrPixels the pixels of the original sprite in row major order
+     * @param width      the width of the sprite
+     * @param height     the height of the sprite
+     * @return the recolored pixels
+     */
+    public int[] recolorPixels(int[] abgrPixels, int width, int height) {
+        int[] result = new int[abgrPixels.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = x + y * width;
+                result[index] = recolorPixel(x, y, abgrPixels[index]);
+            }
+        }
+        return result;
+    }
+
+    protected int recolorPixel(int x, int y, int abgr) {
+        int opacity = ColorHelper.Abgr.getAlpha(abgr);
+        if (opacity < 5 && opacity > -1) {
+            return 0;
+        }
+        return getReplacementColor(x, y, abgr);
+    }
+
     @Override
     public void close() throws IOException {
         if (lastImage != null) {
@@ -23,6 +23,7 @@ import smartin.miapi.modules.properties.util.ModuleProperty;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 /**
@@ -34,12 +35,19 @@ public class AttributeProperty implements ModuleProperty {
     public static final Map<String, Supplier<EntityAttribute>> replaceMap = new HashMap<>();
     public static final Map<EntityAttribute, Float> priorityMap = new HashMap<>();
     public static final List<AttributeTransformer> attributeTransformers = new ArrayList<>();
+    /**
+     * Transformers that read the damage of the stack register a check here, the cache ignores damage,
+     * so the attributes of matching stacks are computed on every lookup instead of being cached.
+     */
+    public static final List<Predicate<ItemStack>> damageDependent = new ArrayList<>();
     public static Map<EquipmentSlot, UUID> uuidCache = new HashMap<>();
+    protected static ModularItemCache.CacheSlot<Multimap<EntityAttribute, EntityAttributeModifierHolder>> attributeSlot;
+    protected static ModularItemCache.CacheSlot<Map<EquipmentSlot, Multimap<EntityAttribute, EntityAttributeModifier>>> slotAttributeSlot;
 
     public AttributeProperty() {
         property = this;
-        ModularItemCache.setSupplier(KEY, (AttributeProperty::createAttributeCache));
-        ModularItemCache.setSupplier(KEY + "_unmodifieable", (AttributeProperty::equipmentSlotMultimapMapGenerate));
+        attributeSlot = ModularItemCache.createSlot(KEY, (AttributeProperty::createAttributeCache));
+        slotAttributeSlot = ModularItemCache.createSlot(KEY + "_unmodifieable", (AttributeProperty::equipmentSlotMultimapMapGenerate));
         priorityMap.put(EntityAttributes.GENERIC_ARMOR, -15.0f);
         priorityMap.put(EntityAttributes.GENERIC_ARMOR_TOUGHNESS, -14.0f);
         priorityMap.put(EntityAttributes.GENERIC_KNOCKBACK_RESISTANCE, -13.0f);
@@ -168,7 +176,7 @@ public class AttributeProperty implements ModuleProperty {
      */
     public static Multimap<EntityAttribute, EntityAttributeModifierHolder> getAttributeModifiersRaw(ItemStack itemStack) {
         Multimap<EntityAttribute, EntityAttributeModifierHolder> multimap = ArrayListMultimap.create();
-        return ModularItemCache.get(itemStack, KEY, multimap);
+        return ModularItemCache.get(itemStack, attributeSlot, multimap);
     }
 
     /**
@@ -193,11 +201,18 @@ public class AttributeProperty implements ModuleProperty {
      * @return
      */
     public static Map<EquipmentSlot, Multimap<EntityAttribute, EntityAttributeModifier>> equipmentSlotMultimapMap(ItemStack itemStack) {
+        if (itemStack.getItem() instanceof ModularItem && damageDependent.stream().anyMatch(predicate -> predicate.test(itemStack))) {
+            return equipmentSlotMultimapMapGenerate(itemStack);
+        }
+        Map<EquipmentSlot, Multimap<EntityAttribute, EntityAttributeModifier>> cached = ModularItemCache.get(itemStack, slotAttributeSlot, null);
+        if (cached != null) {
+            return cached;
+        }
         Map<EquipmentSlot, Multimap<EntityAttribute, EntityAttributeModifier>> replaceMap = new EnumMap<>(EquipmentSlot.class);
         for (EquipmentSlot slot : EquipmentSlot.values()) {
             replaceMap.put(slot, ArrayListMultimap.create());
         }
-        return ModularItemCache.get(itemStack, KEY + "_unmodifieable", replaceMap);
+        return replaceMap;
     }
 
     private static Multimap<EntityAttribute, EntityAttributeModifier> getAttributeModifiersForSlot(ItemStack itemStack, EquipmentSlot slot, Multimap<EntityAttribute, EntityAttributeModifier> toAdding) {
@@ -48,7 +48,6 @@ public class CraftingEnchantProperty implements ModuleProperty, CraftingProperty
         List<Pair<Enchantment, Integer>> enchants = new ArrayList<>();
 
         JsonElement list = ItemModule.getMergedProperty(itemStack, property, MergeType.SMART);
-        ItemModule.getMergedProperty(ItemModule.getModules(itemStack), property);
         Map<String, Integer> map = Miapi.gson.fromJson(list, type);
         if (map != null) {
             map.forEach((id, level) -> {
@@ -31,10 +31,11 @@ public class EnchantmentProperty implements CraftingProperty, ModuleProperty {
     public static final String KEY = "enchantments";
     public static EnchantmentProperty property;
     public static Map<String, Set<String>> replaceMap = new HashMap<>();
+    protected static ModularItemCache.CacheSlot<List<Enchantment>> allowedSlot;
 
     public EnchantmentProperty() {
         property = this;
-        ModularItemCache.setSupplier(KEY, this::createAllowedList);
+        allowedSlot = ModularItemCache.createSlot(KEY, this::createAllowedList);
 
         Miapi.registerReloadHandler(ReloadEvents.MAIN, "enchantment_categories", (isClient) -> {
             replaceMap.clear();
@@ -120,7 +121,7 @@ public class EnchantmentProperty implements CraftingProperty, ModuleProperty {
     }
 
     public static List<Enchantment> getAllowedList(ItemStack stack) {
-        return ModularItemCache.get(stack, KEY, Collections.emptyList());
+        return ModularItemCache.get(stack, allowedSlot, Collections.emptyList());
     }
 
     public static void addToReplaceMap(String key, String enchant) {
@@ -93,7 +93,6 @@ public class FakeEnchantmentProperty implements ModuleProperty {
         Map<Enchantment, Integer> enchants = new HashMap<>();
 
         JsonElement list = ItemModule.getMergedProperty(itemStack, property, MergeType.SMART);
-        ItemModule.getMergedProperty(ItemModule.getModules(itemStack), property);
         Map<String, Integer> map = Miapi.gson.fromJson(list, type);
         if (map != null) {
             map.forEach((id, level) -> {
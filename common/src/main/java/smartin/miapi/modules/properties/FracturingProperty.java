@@ -20,6 +20,7 @@ public class FracturingProperty extends DoubleProperty {
     public FracturingProperty() {
         super(KEY);
         property = this;
+        AttributeProperty.damageDependent.add(itemStack -> getValueSafe(itemStack) > 0);
         AttributeProperty.attributeTransformers.add((map, itemstack) -> {
             double strength = getValueSafe(itemstack);
             if (strength > 0 && itemstack.getMaxDamage() > 0) {
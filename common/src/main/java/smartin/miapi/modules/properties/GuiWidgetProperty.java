@@ -49,7 +49,7 @@ public class GuiWidgetProperty<T extends InteractAbleWidget & SingleStatDisplay>
     @Environment(EnvType.CLIENT)
     public List<T> getGuis(ItemStack itemStack) {
         List<T> guis = new ArrayList<>();
-        JsonElement element = ItemModule.getModules(itemStack).getPropertiesMerged().get(this);
+        JsonElement element = ItemModule.getMergedProperty(itemStack, this);
         if (element != null && element.isJsonArray()) {
             element.getAsJsonArray().forEach(guiElement -> {
                 if (guiElement instanceof JsonObject object) {
@@ -34,7 +34,7 @@ public class ImmolateProperty extends DoubleProperty {
                 return;
             }
             if (player.age % 250 == 0) {
-                double strength = getForItems(player.getItemsEquipped());
+                double strength = getForEquipped(player);
                 if (strength > 0) {
                     double chance = Math.min(1, strength * 0.05 + 0.05);
                     if (MathUtil.random(0d, 1d) < chance) {
@@ -46,7 +46,7 @@ public class LuminousLearningProperty extends DoubleProperty {
         EntityEvent.LIVING_DEATH.register((LivingEntity entity, DamageSource source) -> {
             if (entity.getWorld() instanceof ServerWorld serverWorld) {
                 int xp = entity.getXpToDrop();
-                double value = getForItems(entity.getItemsEquipped());
+                double value = getForEquipped(entity);
                 while (value > 0) {
                     if (Math.random() > 0.7) {
                         ExperienceOrbEntity.spawn(serverWorld, Vec3d.ofCenter(entity.getBlockPos()), xp);
@@ -0,0 +1,169 @@
+package smartin.miapi.modules.properties.mining;
+
+import dev.architectury.event.events.common.LifecycleEvent;
+import dev.architectury.event.events.common.PlayerEvent;
+import dev.architectury.event.events.common.TickEvent;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import smartin.miapi.config.MiapiConfig;
+import smartin.miapi.modules.properties.mining.mode.MiningMode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Breaks the blocks of area and vein mining over several ticks.
+ * All jobs share one budget of attempted blocks per server tick, see {@link smartin.miapi.config.MiapiServerConfig.OtherCategory#areaMiningBlocksPerTick},
+ * and take turns so a single large shape cannot starve the others. The speed of a job only counts blocks that were actually broken.
+ * The blocks a job breaks in one tick are grouped by chunk, blocks in chunks that are no longer loaded are skipped.
+ * Jobs are cancelled once their player leaves, dies or no longer holds the mining item.
+ * Only access this from the server thread.
+ */
+public class AreaMiningScheduler {
+    protected static final List<Job> jobs = new ArrayList<>();
+    protected static int remainingBudget = 0;
+    protected static int nextJob = 0;
+
+    public static void setup() {
+        TickEvent.SERVER_PRE.register(server -> remainingBudget = getBudget());
+        TickEvent.SERVER_POST.register(server -> tick());
+        PlayerEvent.PLAYER_QUIT.register(player -> jobs.removeIf(job -> job.player == player));
+        LifecycleEvent.SERVER_STOPPING.register(server -> jobs.clear());
+    }
+
+    /**
+     * Schedules the blocks to be mined, closest to the origin first.
+     *
+     * @param speed     how many blocks are broken per tick at most, air and unbreakable blocks do not count
+     * @param immediate if true the job starts mining right away instead of at the end of the tick
+     */
+    public static void submit(List<BlockPos> posList, World world, ServerPlayerEntity player, BlockPos origin, ItemStack itemStack, MiningMode miningMode, double durabilityBreakChance, float speed, boolean immediate) {
+        if (posList.isEmpty()) {
+            return;
+        }
+        List<BlockPos> sorted = new ArrayList<>(posList);
+        sorted.sort(Comparator.comparingDouble(pos -> pos.getSquaredDistance(origin)));
+        LongArrayList positions = new LongArrayList(sorted.size());
+        sorted.forEach(pos -> positions.add(pos.asLong()));
+        Job job = new Job(positions, world, player, itemStack, miningMode, durabilityBreakChance, speed);
+        if (immediate) {
+            remainingBudget -= job.mine(remainingBudget);
+        }
+        if (!job.isDone()) {
+            jobs.add(job);
+        }
+    }
+
+    protected static int getBudget() {
+        return Math.max(1, MiapiConfig.INSTANCE.server.other.areaMiningBlocksPerTick);
+    }
+
+    protected static void tick() {
+        int size = jobs.size();
+        if (size == 0) {
+            return;
+        }
+        int start = nextJob % size;
+        for (int i = 0; i < size && remainingBudget > 0; i++) {
+            Job job = jobs.get((start + i) % size);
+            remainingBudget -= job.mine(remainingBudget);
+            nextJob = start + i + 1;
+        }
+        jobs.removeIf(Job::isDone);
+    }
+
+    protected static class Job {
+        protected final LongArrayList positions;
+        protected final World world;
+        protected final ServerPlayerEntity player;
+        protected final ItemStack itemStack;
+        protected final MiningMode miningMode;
+        protected final double durabilityBreakChance;
+        protected final float speed;
+        protected int next = 0;
+        protected boolean cancelled = false;
+
+        protected Job(LongArrayList positions, World world, ServerPlayerEntity player, ItemStack itemStack, MiningMode miningMode, double durabilityBreakChance, float speed) {
+            this.positions = positions;
+            this.world = world;
+            this.player = player;
+            this.itemStack = itemStack;
+            this.miningMode = miningMode;
+            this.durabilityBreakChance = durabilityBreakChance;
+            this.speed = speed;
+        }
+
+        protected boolean isDone() {
+            return cancelled || next >= positions.size();
+        }
+
+        protected boolean canContinue() {
+            return !player.isRemoved() && !player.isDisconnected() && player.isAlive() && player.getWorld() == world &&
+                   player.getMainHandStack() == itemStack && itemStack.getMaxDamage() - itemStack.getDamage() > 1;
+        }
+
+        /**
+         * Breaks the next blocks of this job, until {@link #speed} blocks were broken or the budget is used up.
+         *
+         * @param budget how many blocks may be attempted at most
+         * @return how many blocks were attempted
+         */
+        protected int mine(int budget) {
+            if (!canContinue()) {
+                cancelled = true;
+                return 0;
+            }
+            int end = Math.min(positions.size(), next + budget);
+            Long2ObjectLinkedOpenHashMap<LongArrayList> chunks = new Long2ObjectLinkedOpenHashMap<>();
+            for (int i = next; i < end; i++) {
+                long pos = positions.getLong(i);
+                chunks.computeIfAbsent(ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4), key -> new LongArrayList()).add(pos);
+            }
+            int attempted = 0;
+            int broken = 0;
+            LongArrayList remaining = new LongArrayList();
+            for (Long2ObjectMap.Entry<LongArrayList> chunk : chunks.long2ObjectEntrySet()) {
+                LongArrayList chunkPositions = chunk.getValue();
+                if (broken >= speed) {
+                    remaining.addAll(chunkPositions);
+                    continue;
+                }
+                if (!world.isChunkLoaded(ChunkPos.getPackedX(chunk.getLongKey()), ChunkPos.getPackedZ(chunk.getLongKey()))) {
+                    attempted += chunkPositions.size();
+                    continue;
+                }
+                for (int i = 0; i < chunkPositions.size(); i++) {
+                    if (broken >= speed) {
+                        remaining.add(chunkPositions.getLong(i));
+                        continue;
+                    }
+                    if (!canContinue()) {
+                        cancelled = true;
+                        return attempted;
+                    }
+                    attempted++;
+                    BlockPos blockPos = BlockPos.fromLong(chunkPositions.getLong(i));
+                    if (world.breakBlock(blockPos, MiningLevelProperty.canMine(world.getBlockState(blockPos), world, blockPos, player) && !player.isCreative(), player)) {
+                        broken++;
+                        if (!player.isCreative()) {
+                            miningMode.removeDurability(durabilityBreakChance, itemStack, world, player);
+                        }
+                    }
+                }
+            }
+            //blocks left over once the speed is reached are mined first next tick
+            next = end - remaining.size();
+            for (int i = 0; i < remaining.size(); i++) {
+                positions.set(next + i, remaining.getLong(i));
+            }
+            return attempted;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import net.minecraft.registry.tag.TagKey;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import smartin.miapi.attributes.AttributeRegistry;
+import smartin.miapi.datapack.ReloadEvents;
 import smartin.miapi.item.modular.StatResolver;
 import smartin.miapi.modules.ItemModule;
 import smartin.miapi.modules.cache.ModularItemCache;
@@ -39,6 +40,7 @@ public class MiningLevelProperty implements ModuleProperty {
     public static Map<String, TagKey<Block>> miningCapabilities = new HashMap<>();
     public static Map<TagKey<Block>, Integer> miningLevels = new HashMap<>();
     public static Item lastFakedItem;
+    public static final ModularItemCache.CacheSlot<MiningProfile> PROFILE_SLOT = ModularItemCache.createSlot("miapi_mining_profile", MiningProfile::new);
 
     public MiningLevelProperty() {
         property = this;
@@ -50,6 +52,7 @@ public class MiningLevelProperty implements ModuleProperty {
         miningLevels.put(BlockTags.NEEDS_STONE_TOOL, 1);
         miningLevels.put(BlockTags.NEEDS_IRON_TOOL, 2);
         miningLevels.put(BlockTags.NEEDS_DIAMOND_TOOL, 3);
+        ReloadEvents.END.subscribe(isClient -> MiningProfile.forgetResults());
         ModularItemCache.setSupplier(KEY, (stack) -> {
             Map<String, Float> mergedMap = new HashMap<>();
             List<ItemModule.ModuleInstance> modules = ItemModule.getModules(stack).allSubModules();
@@ -70,9 +73,15 @@ public class MiningLevelProperty implements ModuleProperty {
         });
     }
 
+    /**
+     * @return the highest level of every mining type of the stack
+     */
+    public static Map<String, Float> getMiningLevels(ItemStack stack) {
+        return ModularItemCache.get(stack, KEY, new HashMap<>());
+    }
+
     public static int getMiningLevel(String type, ItemStack stack) {
-        Map<String, Float> mergedMap = ModularItemCache.get(stack, KEY, new HashMap<>());
-        Float value = mergedMap.get(type);
+        Float value = getMiningLevels(stack).get(type);
         if (value != null) {
             return value.intValue();
         }
@@ -89,12 +98,16 @@ public class MiningLevelProperty implements ModuleProperty {
     }
 
     /**
-     * we cant use the normal caching since we need to avoid an Itemstack.getItem() call here
+     * we cant use the normal caching since we need to avoid an Itemstack.getItem() call here.
+     * The material of the {@link MiningProfile} is served if the profile of the stack is already resolved,
+     * otherwise a view on the stack is created.
      */
-    static Map<ItemStack, ToolMaterial> toolMaterialLookup = Collections.synchronizedMap(new WeakHashMap<>());
-
     public static ToolMaterial getFakeToolMaterial(ItemStack itemStack) {
-        return toolMaterialLookup.getOrDefault(itemStack, getFakeToolMaterialCache(itemStack));
+        MiningProfile profile = ModularItemCache.getIfResolved(itemStack, PROFILE_SLOT);
+        if (profile != null) {
+            return profile.toolMaterial;
+        }
+        return getFakeToolMaterialCache(itemStack);
     }
 
     private static ToolMaterial getFakeToolMaterialCache(ItemStack itemStack) {
@@ -132,21 +145,8 @@ public class MiningLevelProperty implements ModuleProperty {
     }
 
     public static boolean isSuitable(ItemStack stack, BlockState state) {
-        Map<String, Float> mergedMap = ModularItemCache.get(stack, KEY, new HashMap<>());
-        for (Map.Entry<String, TagKey<Block>> entry : miningCapabilities.entrySet()) {
-            if (state.isIn(entry.getValue())) {
-                Float level = mergedMap.get(entry.getKey());
-                if (level != null) {
-                    for (Map.Entry<TagKey<Block>, Integer> miningLevelEntry : miningLevels.entrySet()) {
-                        if (state.isIn(miningLevelEntry.getKey())) {
-                            return miningLevelEntry.getValue() <= level;
-                        }
-                    }
-                    return true;
-                }
-            }
-        }
-        return false;
+        MiningProfile profile = ModularItemCache.get(stack, PROFILE_SLOT, null);
+        return profile != null && profile.isSuitable(state);
     }
 
     public static boolean isSuitable(ItemStack stack, String type) {
@@ -188,6 +188,10 @@ public class MiningLevelProperty implements ModuleProperty {
     }
 
     public static float getMiningSpeedMultiplier(ItemStack stack, BlockState state) {
+        MiningProfile profile = ModularItemCache.get(stack, PROFILE_SLOT, null);
+        if (profile != null) {
+            return profile.getMiningSpeedMultiplier(state);
+        }
         if (state.isIn(BlockTags.PICKAXE_MINEABLE)) {
             double value = AttributeProperty.getActualValue(stack, EquipmentSlot.MAINHAND, AttributeRegistry.MINING_SPEED_PICKAXE, 1);
             return (value == 0) ? 1.0f : (float) value;
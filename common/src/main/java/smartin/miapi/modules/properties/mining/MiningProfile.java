@@ -0,0 +1,180 @@
+package smartin.miapi.modules.properties.mining;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.attribute.EntityAttributes;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.SwordItem;
+import net.minecraft.item.ToolMaterial;
+import net.minecraft.recipe.Ingredient;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.registry.tag.TagKey;
+import smartin.miapi.attributes.AttributeRegistry;
+import smartin.miapi.modules.properties.AttributeProperty;
+import smartin.miapi.modules.properties.DurabilityProperty;
+import smartin.miapi.modules.properties.EnchantAbilityProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The mining capabilities of one cached item, compiled from the {@link MiningLevelProperty} and the mining speed attributes.
+ * Results are remembered per {@link BlockState}, so the checks that run every tick while mining skip all tag lookups.
+ * Cache entries can outlive a reload, so all remembered results are dropped after every reload, as block tags may have changed.
+ * The profile also holds the fake {@link ToolMaterial} of the item, so it is not rebuilt on every request.
+ */
+public class MiningProfile {
+    protected static final int MAX_REMEMBERED_STATES = 1024;
+    protected static volatile int generation = 0;
+
+    protected final List<TagKey<Block>> capabilityTags = new ArrayList<>();
+    protected final List<Float> capabilityLevels = new ArrayList<>();
+    protected final List<TagKey<Block>> levelTags = new ArrayList<>();
+    protected final List<Integer> requiredLevels = new ArrayList<>();
+    protected final float pickaxeSpeed;
+    protected final float axeSpeed;
+    protected final float shovelSpeed;
+    protected final float hoeSpeed;
+    protected final boolean sword;
+    public final ToolMaterial toolMaterial;
+    protected final Map<BlockState, Result> results = new ConcurrentHashMap<>();
+    protected volatile int resultGeneration = generation;
+
+    public MiningProfile(ItemStack stack) {
+        Map<String, Float> levels = MiningLevelProperty.getMiningLevels(stack);
+        MiningLevelProperty.miningCapabilities.forEach((type, tag) -> {
+            Float level = levels.get(type);
+            if (level != null) {
+                capabilityTags.add(tag);
+                capabilityLevels.add(level);
+            }
+        });
+        MiningLevelProperty.miningLevels.forEach((tag, level) -> {
+            levelTags.add(tag);
+            requiredLevels.add(level);
+        });
+        pickaxeSpeed = getSpeed(AttributeProperty.getActualValue(stack, EquipmentSlot.MAINHAND, AttributeRegistry.MINING_SPEED_PICKAXE, 1));
+        axeSpeed = getSpeed(AttributeProperty.getActualValue(stack, EquipmentSlot.MAINHAND, AttributeRegistry.MINING_SPEED_AXE, 1));
+        shovelSpeed = getSpeed(AttributeProperty.getActualValue(stack, EquipmentSlot.MAINHAND, AttributeRegistry.MINING_SPEED_SHOVEL, 1));
+        hoeSpeed = getSpeed(AttributeProperty.getActualValue(stack, EquipmentSlot.MAINHAND, AttributeRegistry.MINING_SPEED_HOE, 1));
+        sword = stack.getItem() instanceof SwordItem;
+        toolMaterial = new CachedToolMaterial(
+                (int) DurabilityProperty.property.getValueSafe(stack),
+                MiningLevelProperty.getHighestMiningSpeedMultiplier(stack),
+                (float) AttributeProperty.getActualValue(stack, EquipmentSlot.MAINHAND, EntityAttributes.GENERIC_ATTACK_DAMAGE, 1),
+                MiningLevelProperty.getMiningLevelHighest(stack),
+                (int) EnchantAbilityProperty.getEnchantAbility(stack));
+    }
+
+    public boolean isSuitable(BlockState state) {
+        return getResult(state).suitable();
+    }
+
+    public float getMiningSpeedMultiplier(BlockState state) {
+        return getResult(state).speed();
+    }
+
+    /**
+     * Drops the remembered results of all profiles, called after every reload.
+     */
+    public static void forgetResults() {
+        generation++;
+    }
+
+    protected Result getResult(BlockState state) {
+        if (resultGeneration != generation) {
+            results.clear();
+            resultGeneration = generation;
+        }
+        Result result = results.get(state);
+        if (result == null) {
+            result = new Result(computeSuitable(state), computeSpeed(state));
+            if (results.size() >= MAX_REMEMBERED_STATES) {
+                results.clear();
+            }
+            results.put(state, result);
+        }
+        return result;
+    }
+
+    protected boolean computeSuitable(BlockState state) {
+        for (int i = 0; i < capabilityTags.size(); i++) {
+            if (state.isIn(capabilityTags.get(i))) {
+                for (int j = 0; j < levelTags.size(); j++) {
+                    if (state.isIn(levelTags.get(j))) {
+                        return requiredLevels.get(j) <= capabilityLevels.get(i);
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected float computeSpeed(BlockState state) {
+        if (state.isIn(BlockTags.PICKAXE_MINEABLE)) {
+            return pickaxeSpeed;
+        }
+        if (state.isIn(BlockTags.AXE_MINEABLE)) {
+            return axeSpeed;
+        }
+        if (state.isIn(BlockTags.SHOVEL_MINEABLE)) {
+            return shovelSpeed;
+        }
+        if (state.isIn(BlockTags.HOE_MINEABLE)) {
+            return hoeSpeed;
+        }
+        if (sword) {
+            if (state.isOf(Blocks.COBWEB)) {
+                return 15.0F;
+            } else {
+                return state.isIn(BlockTags.SWORD_EFFICIENT) ? 1.5F : 1.0F;
+            }
+        }
+        return 1.0f;
+    }
+
+    protected static float getSpeed(double value) {
+        return (value == 0) ? 1.0f : (float) value;
+    }
+
+    protected record Result(boolean suitable, float speed) {
+    }
+
+    protected record CachedToolMaterial(int durability, float miningSpeedMultiplier, float attackDamage, int miningLevel,
+                                        int enchantability) implements ToolMaterial {
+        @Override
+        public int getDurability() {
+            return durability;
+        }
+
+        @Override
+        public float getMiningSpeedMultiplier() {
+            return miningSpeedMultiplier;
+        }
+
+        @Override
+        public float getAttackDamage() {
+            return attackDamage;
+        }
+
+        @Override
+        public int getMiningLevel() {
+            return miningLevel;
+        }
+
+        @Override
+        public int getEnchantability() {
+            return enchantability;
+        }
+
+        @Override
+        public Ingredient getRepairIngredient() {
+            return Ingredient.EMPTY;
+        }
+    }
+}
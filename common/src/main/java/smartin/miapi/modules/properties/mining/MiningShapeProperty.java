@@ -42,11 +42,12 @@ public class MiningShapeProperty implements ModuleProperty {
     public static Map<String, MiningShape> miningShapeMap = new HashMap<>();
     public static Map<String, MiningMode> miningModeMap = new HashMap<>();
     public static Map<String, MiningModifier> miningModifierMap = new HashMap<>();
+    protected static ModularItemCache.CacheSlot<List<MiningShapeJson>> shapeSlot;
 
 
     public MiningShapeProperty() {
         property = this;
-        ModularItemCache.setSupplier(KEY, MiningShapeProperty::getCache);
+        shapeSlot = ModularItemCache.createSlot(KEY, MiningShapeProperty::getCache);
         BlockEvent.BREAK.register((level, pos, state, player, xp) -> {
             if (!level.isClient() && !player.isSneaking()) {
                 ItemStack miningItem = player.getMainHandStack();
@@ -63,6 +64,7 @@ public class MiningShapeProperty implements ModuleProperty {
             return EventResult.pass();
         });
 
+        AreaMiningScheduler.setup();
         miningModeMap.put("instant", new InstantMiningMode(1));
         miningModeMap.put("staggered", new StaggeredMiningMode());
 
@@ -83,7 +85,7 @@ public class MiningShapeProperty implements ModuleProperty {
     }
 
     public List<MiningShapeJson> get(ItemStack stack) {
-        return ModularItemCache.get(stack, KEY, new ArrayList<>());
+        return ModularItemCache.get(stack, shapeSlot, new ArrayList<>());
     }
 
     private static List<MiningShapeJson> getCache(ItemStack stack) {
@@ -6,15 +6,14 @@ import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import smartin.miapi.modules.ItemModule;
-import smartin.miapi.modules.properties.mining.MiningLevelProperty;
+import smartin.miapi.modules.properties.mining.AreaMiningScheduler;
 import smartin.miapi.modules.properties.mining.MiningShapeProperty;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 /**
  * This Mining Mode mines all blocksinstantly and creates the drops where the block was mined
+ * If the shape is larger than what is left of the {@link AreaMiningScheduler} budget of this tick, the rest is mined in the next ticks
  */
 public class InstantMiningMode implements MiningMode {
     public double durabilityBreakChance;
@@ -30,16 +29,6 @@ public class InstantMiningMode implements MiningMode {
 
     @Override
     public void execute(List<BlockPos> posList, World world, ServerPlayerEntity player, BlockPos origin, ItemStack itemStack) {
-        List<BlockPos> reducedList = new ArrayList<>(posList);
-        reducedList.sort(Comparator.comparingDouble((pos) -> pos.getSquaredDistance(origin)));
-        posList.forEach(blockPos -> {
-            if (itemStack.getMaxDamage() - itemStack.getDamage() > 1 &&
-                    world.breakBlock(blockPos, MiningLevelProperty.canMine(world.getBlockState(blockPos), world, blockPos, player) && !player.isCreative(), player)
-            ) {
-                if (!player.isCreative()) {
-                    removeDurability(durabilityBreakChance, itemStack, world, player);
-                }
-            }
-        });
+        AreaMiningScheduler.submit(posList, world, player, origin, itemStack, this, durabilityBreakChance, Float.MAX_VALUE, true);
     }
 }
@@ -1,31 +1,22 @@
 package smartin.miapi.modules.properties.mining.mode;
 
 import com.google.gson.JsonObject;
-import dev.architectury.event.events.common.TickEvent;
 import net.minecraft.item.ItemStack;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import smartin.miapi.modules.ItemModule;
-import smartin.miapi.modules.properties.mining.MiningLevelProperty;
+import smartin.miapi.modules.properties.mining.AreaMiningScheduler;
 import smartin.miapi.modules.properties.mining.MiningShapeProperty;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
+/**
+ * This Mining Mode mines {@link #speed} blocks per tick through the {@link AreaMiningScheduler}
+ */
 public class StaggeredMiningMode implements MiningMode {
     public float speed = 1;
     public double durabilityBreakChance;
-    public static List<Runnable> nextTickTask = new ArrayList<>();
-
-    static {
-        TickEvent.SERVER_POST.register((server -> {
-            List<Runnable> currentTicks = new ArrayList<>(nextTickTask);
-            nextTickTask.clear();
-            currentTicks.forEach(server::execute);
-        }));
-    }
 
     public StaggeredMiningMode() {
 
@@ -41,26 +32,6 @@ public class StaggeredMiningMode implements MiningMode {
 
     @Override
     public void execute(List<BlockPos> posList, World world, ServerPlayerEntity player, BlockPos origin, ItemStack itemStack) {
-        List<BlockPos> reducedList = new ArrayList<>(posList);
-        reducedList.sort(Comparator.comparingDouble((pos) -> pos.getSquaredDistance(origin)));
-        nextTickTask.add(() -> {
-            BlockPos pos;
-            int success = 0;
-            do {
-                pos = reducedList.remove(0);
-                if (world.breakBlock(pos, MiningLevelProperty.canMine(world.getBlockState(pos), world, pos, player) && !player.isCreative(), player)) {
-                    success++;
-                    if(!player.isCreative()){
-                        removeDurability(durabilityBreakChance, itemStack, world, player);
-                    }
-                }
-            } while (
-                    success < speed
-                            && !reducedList.isEmpty() && itemStack.getMaxDamage() - itemStack.getDamage() > 1
-            );
-            if (!reducedList.isEmpty() && itemStack.getMaxDamage() - itemStack.getDamage() > 1) {
-                execute(reducedList, world, player, origin, itemStack);
-            }
-        });
+        AreaMiningScheduler.submit(posList, world, player, origin, itemStack, this, durabilityBreakChance, speed, false);
     }
 }
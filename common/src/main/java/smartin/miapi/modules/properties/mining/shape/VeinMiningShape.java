@@ -1,6 +1,8 @@
 package smartin.miapi.modules.properties.mining.shape;
 
 import com.google.gson.JsonObject;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
@@ -8,8 +10,8 @@ import net.minecraft.world.World;
 import smartin.miapi.modules.ItemModule;
 import smartin.miapi.modules.properties.mining.MiningShapeProperty;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
@@ -31,11 +33,11 @@ public class VeinMiningShape implements MiningShape {
         if (maxBlocks < 1) {
             return miningBlocks;
         }
-        Queue<BlockPos> queue = new LinkedList<>();
-        List<BlockPos> visited = new ArrayList<>();
+        Queue<BlockPos> queue = new ArrayDeque<>();
+        LongSet visited = new LongOpenHashSet();
 
         queue.add(pos);
-        visited.add(pos);
+        visited.add(pos.asLong());
 
         BlockState centerState = world.getBlockState(pos);
 
@@ -51,9 +53,7 @@ public class VeinMiningShape implements MiningShape {
                 int dy1 = neighborPos.getY() - pos.getY() + size;
                 int dz1 = neighborPos.getZ() - pos.getZ() + size;
                 if (Math.abs(dx1 - size) <= size && Math.abs(dy1 - size) <= size && Math.abs(dz1 - size) <= size
-                        && !visited.contains(neighborPos)) {
-
-                    visited.add(neighborPos);
+                        && visited.add(neighborPos.asLong())) {
 
                     BlockState neighborState = world.getBlockState(neighborPos);
                     if (neighborState.getBlock().equals(centerState.getBlock())) {
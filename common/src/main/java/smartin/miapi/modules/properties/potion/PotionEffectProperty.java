@@ -14,6 +14,7 @@ import net.minecraft.util.Identifier;
 import org.jetbrains.annotations.Nullable;
 import smartin.miapi.Miapi;
 import smartin.miapi.modules.ItemModule;
+import smartin.miapi.modules.cache.EquipmentSnapshot;
 import smartin.miapi.modules.cache.ModularItemCache;
 import smartin.miapi.modules.properties.util.ModuleProperty;
 
@@ -172,31 +173,43 @@ public abstract class PotionEffectProperty implements ModuleProperty {
 
     public List<EffectHolder> getHoldersConditional(LivingEntity entity, EffectPredicate predicate) {
         List<EffectHolder> effectHolders = new ArrayList<>();
-        for (EquipmentSlot slot : EquipmentSlot.values()) {
-            ItemStack itemStack = entity.getEquippedStack(slot);
-            getStatusEffects(itemStack)
-                    .stream()
-                    .filter(effectHolder -> isValidForSlot(slot, effectHolder, entity))
-                    .filter(effectHolder -> predicate.filterHolder(effectHolder, slot))
-                    .forEach(effectHolders::add);
+        for (EquippedEffect effect : getEquippedEffects(entity)) {
+            if ((!effect.activeHand() || isValidForSlot(effect.slot(), effect.holder(), entity)) && predicate.filterHolder(effect.holder(), effect.slot())) {
+                effectHolders.add(effect.holder());
+            }
         }
         return effectHolders;
     }
 
     public List<EffectHolder> getHoldersConditional(LivingEntity entity) {
-        List<EffectHolder> effectHolders = new ArrayList<>();
-        for (EquipmentSlot slot : EquipmentSlot.values()) {
-            ItemStack itemStack = entity.getEquippedStack(slot);
-            getStatusEffects(itemStack)
-                    .stream()
-                    .filter(effectHolder -> isValidForSlot(slot, effectHolder, entity))
-                    .forEach(effectHolders::add);
-        }
-        return effectHolders;
+        return getHoldersConditional(entity, (effectHolder, equipmentSlot) -> true);
+    }
+
+    /**
+     * All effects of the equipped items with the slot they are in, kept in the {@link EquipmentSnapshot} of the entity.
+     * Effects that are not valid for their slot are left out, except for effects of the active hand, as that changes without an equipment change.
+     */
+    protected List<EquippedEffect> getEquippedEffects(LivingEntity entity) {
+        return EquipmentSnapshot.get(entity).get(this, snapshot -> {
+            List<EquippedEffect> effects = new ArrayList<>();
+            for (EquipmentSlot slot : EquipmentSlot.values()) {
+                for (EffectHolder holder : getStatusEffects(snapshot.getStack(slot))) {
+                    boolean activeHand = "active_hand".equals(getSlotKey(holder));
+                    if (activeHand || isValidForSlot(slot, holder, entity)) {
+                        effects.add(new EquippedEffect(slot, holder, activeHand));
+                    }
+                }
+            }
+            return effects;
+        });
+    }
+
+    protected String getSlotKey(EffectHolder holder) {
+        return ModuleProperty.getString(holder.rawData(), "equipment_slot", holder.moduleInstance(), "all");
     }
 
     public boolean isValidForSlot(EquipmentSlot equipmentSlot, EffectHolder holder, LivingEntity livingEntity) {
-        String key = ModuleProperty.getString(holder.rawData(), "equipment_slot", holder.moduleInstance(), "all");
+        String key = getSlotKey(holder);
         switch (key) {
             case "all" -> {
                 return true;
@@ -295,6 +308,9 @@ public abstract class PotionEffectProperty implements ModuleProperty {
         }
     }
 
+    protected record EquippedEffect(EquipmentSlot slot, EffectHolder holder, boolean activeHand) {
+    }
+
     public interface EffectPredicate {
         boolean filterHolder(EffectHolder effectHolder, EquipmentSlot equipmentSlot);
     }
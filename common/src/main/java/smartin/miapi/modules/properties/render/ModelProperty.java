@@ -44,6 +44,7 @@ import smartin.miapi.modules.properties.util.ModuleProperty;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
@@ -69,11 +70,7 @@ public class ModelProperty implements RenderProperty {
         ModularItemCache.setSupplier(CACHE_KEY_ITEM, (stack) -> getModelMap(stack).get("item"));
         ModularItemCache.setSupplier(CACHE_KEY_MAP, ModelProperty::generateModels);
         MiapiItemModel.modelSuppliers.add((key, model, stack) -> {
-            List<MiapiModel> miapiModels = new ArrayList<>();
-            for (ModelHolder holder : getForModule(model, key, stack)) {
-                miapiModels.add(new BakedMiapiModel(holder, model, stack));
-            }
-            return miapiModels;
+            return getModelsForModule(model, key, stack);
         });
     }
 
@@ -110,22 +107,67 @@ public class ModelProperty implements RenderProperty {
         return models;
     }
 
+    /**
+     * Creates the models of this module. Models that were not baked before are baked in the background,
+     * until they are done a {@link PendingMiapiModel} renders nothing in their place.
+     */
+    public static List<MiapiModel> getModelsForModule(ItemModule.ModuleInstance instance, String key, ItemStack itemStack) {
+        List<MiapiModel> models = new ArrayList<>();
+        for (ModelJson json : getJson(instance)) {
+            if (!isActive(instance, json, key)) {
+                continue;
+            }
+            UnbakedModelHolder unbakedModel = getUnbakedModel(instance, json);
+            if (unbakedModel == null) {
+                continue;
+            }
+            CompletableFuture<BakedSingleModel> bake = bake(unbakedModel);
+            Function<BakedSingleModel, MiapiModel> modelFactory = model -> {
+                ModelHolder holder = toModelHolder(instance, json, itemStack, unbakedModel, model);
+                return holder != null ? new BakedMiapiModel(holder, instance, itemStack) : null;
+            };
+            if (bake.isDone()) {
+                MiapiModel model = modelFactory.apply(bake.getNow(null));
+                if (model != null) {
+                    models.add(model);
+                }
+            } else {
+                models.add(new PendingMiapiModel<>(bake, modelFactory));
+            }
+        }
+        return models;
+    }
+
     @Nullable
     public static ModelHolder bakedModel(ItemModule.ModuleInstance instance, ModelJson json, ItemStack itemStack, String key) {
-        int condition = Material.getColor(StatResolver.resolveString(json.condition, instance));
-        if(condition!=0){
-            if (
-                    json.transform.origin == null && key == null ||
-                            json.transform.origin != null && json.transform.origin.equals(key) ||
-                            ("item".equals(json.transform.origin) && key == null)) {
-                return bakedModel(instance, json, itemStack);
-            }
+        if (isActive(instance, json, key)) {
+            return bakedModel(instance, json, itemStack);
         }
         return null;
     }
 
+    protected static boolean isActive(ItemModule.ModuleInstance instance, ModelJson json, String key) {
+        int condition = Material.getColor(StatResolver.resolveString(json.condition, instance));
+        return condition != 0 && (
+                json.transform.origin == null && key == null ||
+                        json.transform.origin != null && json.transform.origin.equals(key) ||
+                        ("item".equals(json.transform.origin) && key == null));
+    }
+
+    /**
+     * Bakes the model on the calling thread, reusing a finished bake.
+     */
     @Nullable
     public static ModelHolder bakedModel(ItemModule.ModuleInstance instance, ModelJson json, ItemStack itemStack) {
+        UnbakedModelHolder unbakedModel = getUnbakedModel(instance, json);
+        if (unbakedModel == null) {
+            return null;
+        }
+        return toModelHolder(instance, json, itemStack, unbakedModel, DynamicBakery.bakeModelNow(unbakedModel.model, textureGetter, ColorHelper.Argb.getArgb(255, 255, 255, 255), Transform.IDENTITY));
+    }
+
+    @Nullable
+    protected static UnbakedModelHolder getUnbakedModel(ItemModule.ModuleInstance instance, ModelJson json) {
         Material material = MaterialProperty.getMaterial(instance);
         List<String> list = new ArrayList<>();
         if (material != null) {
@@ -134,15 +176,22 @@ public class ModelProperty implements RenderProperty {
         } else {
             list.add("default");
         }
-        UnbakedModelHolder unbakedModel = null;
         for (String str : list) {
             String fullPath = json.path.replace("[material.texture]", str);
             if (modelCache.containsKey(fullPath)) {
-                unbakedModel = modelCache.get(fullPath);
-                break;
+                return modelCache.get(fullPath);
             }
         }
-        BakedSingleModel model = DynamicBakery.bakeModel(unbakedModel.model, textureGetter, ColorHelper.Argb.getArgb(255, 255, 255, 255), Transform.IDENTITY);
+        Miapi.LOGGER.warn("Could not find model " + json.path + " for module " + instance.module.getName());
+        return null;
+    }
+
+    protected static CompletableFuture<BakedSingleModel> bake(UnbakedModelHolder unbakedModel) {
+        return DynamicBakery.bakeModelAsync(unbakedModel.model, textureGetter, ColorHelper.Argb.getArgb(255, 255, 255, 255), Transform.IDENTITY);
+    }
+
+    @Nullable
+    protected static ModelHolder toModelHolder(ItemModule.ModuleInstance instance, ModelJson json, ItemStack itemStack, UnbakedModelHolder unbakedModel, @Nullable BakedSingleModel model) {
         if (model != null) {
             Matrix4f matrix4f = Transform.toModelTransformation(json.transform).toMatrix();
             String colorProviderId = unbakedModel.modelData.colorProvider != null ?
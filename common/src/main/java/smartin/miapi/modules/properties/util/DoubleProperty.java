@@ -11,6 +11,7 @@ import smartin.miapi.item.modular.ModularItem;
 import smartin.miapi.item.modular.StatResolver;
 import smartin.miapi.item.modular.VisualModularItem;
 import smartin.miapi.modules.ItemModule;
+import smartin.miapi.modules.cache.EquipmentSnapshot;
 import smartin.miapi.modules.cache.ModularItemCache;
 
 import java.util.ArrayList;
@@ -19,13 +20,14 @@ import java.util.List;
 public abstract class DoubleProperty implements ModuleProperty {
     public ModuleProperty property;
     protected String privateKey;
+    protected ModularItemCache.CacheSlot<Double> cacheSlot;
     public double baseValue = 0;
     public boolean allowVisualOnly = false;
 
     protected DoubleProperty(String key) {
         property = this;
         privateKey = key;
-        ModularItemCache.setSupplier(key, (itemstack) -> createValue(itemstack, property));
+        cacheSlot = ModularItemCache.createSlot(key, (itemstack) -> createValue(itemstack, property));
     }
 
     public boolean isModularItem(ItemStack itemStack) {
@@ -190,6 +192,14 @@ public abstract class DoubleProperty implements ModuleProperty {
         return getForItems(itemsNotInSecondIterable);
     }
 
+    /**
+     * The merged value of everything the entity has equipped, same as {@link #getForItems(Iterable)} with {@link LivingEntity#getItemsEquipped()}.
+     * The value is kept in the {@link EquipmentSnapshot} of the entity until its equipment changes.
+     */
+    public double getForEquipped(LivingEntity living) {
+        return EquipmentSnapshot.get(living).get(this, snapshot -> getForItems(snapshot.getStacks()));
+    }
+
     public double getForItems(Iterable<ItemStack> itemStacks) {
         double mergedValue = 0;
         for (ItemStack armorItem : itemStacks) {
@@ -200,14 +210,14 @@ public abstract class DoubleProperty implements ModuleProperty {
 
     @Nullable
     public Double getValueRaw(ItemStack itemStack) {
-        return ModularItemCache.getRaw(itemStack, privateKey);
+        return ModularItemCache.getRaw(itemStack, cacheSlot);
     }
 
     public double getValueSafeRaw(ItemStack itemStack) {
         if(allowVisualOnly){
-            return ModularItemCache.getVisualOnlyCache(itemStack, privateKey, Double.valueOf(0));
+            return ModularItemCache.getVisualOnlyCache(itemStack, cacheSlot, Double.valueOf(0));
         }
-        return ModularItemCache.get(itemStack, privateKey, Double.valueOf(0));
+        return ModularItemCache.get(itemStack, cacheSlot, Double.valueOf(0));
     }
 
     @Override
@@ -0,0 +1,95 @@
+package smartin.miapi.modules.properties.util;
+
+import com.google.gson.JsonElement;
+import smartin.miapi.modules.ItemModule;
+import smartin.miapi.registries.RegistryInventory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static smartin.miapi.Miapi.LOGGER;
+
+/**
+ * The merged properties of a whole module tree. For each {@link MergeType} all properties
+ * are merged in a single pass over the modules the first time that type is requested,
+ * the resulting table is immutable and shared through the item cache.
+ * A property that fails to merge is logged and keeps the value of the last module in the whole table,
+ * looking it up on its own with {@link #get(ModuleProperty, MergeType)} rethrows the failure.
+ */
+public class MergedPropertyTable {
+    protected final ItemModule.ModuleInstance root;
+    protected final AtomicReferenceArray<Merged> merged = new AtomicReferenceArray<>(MergeType.values().length);
+
+    public MergedPropertyTable(ItemModule.ModuleInstance root) {
+        this.root = root;
+    }
+
+    public Map<ModuleProperty, JsonElement> get(MergeType type) {
+        return getMerged(type).properties();
+    }
+
+    /**
+     * @throws RuntimeException the exception the property threw while merging, if it could not be merged
+     */
+    public JsonElement get(ModuleProperty property, MergeType type) {
+        Merged result = getMerged(type);
+        RuntimeException failure = result.failures().get(property);
+        if (failure != null) {
+            throw failure;
+        }
+        return result.properties().get(property);
+    }
+
+    protected Merged getMerged(MergeType type) {
+        Merged result = merged.get(type.ordinal());
+        if (result == null) {
+            Map<ModuleProperty, RuntimeException> failed = new HashMap<>();
+            Map<ModuleProperty, JsonElement> properties = merge(root, type, failed);
+            result = new Merged(properties, failed.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(failed));
+            if (!merged.compareAndSet(type.ordinal(), null, result)) {
+                result = merged.get(type.ordinal());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges every property of the module tree in pre-order, using the given {@link MergeType}.
+     *
+     * @param root the root instance
+     * @param type the mergeType for the merge Logic
+     * @return an immutable map of all merged properties
+     */
+    public static Map<ModuleProperty, JsonElement> merge(ItemModule.ModuleInstance root, MergeType type) {
+        return merge(root, type, new HashMap<>());
+    }
+
+    protected static Map<ModuleProperty, JsonElement> merge(ItemModule.ModuleInstance root, MergeType type, Map<ModuleProperty, RuntimeException> failed) {
+        Map<ModuleProperty, JsonElement> map = new HashMap<>();
+        for (ItemModule.ModuleInstance moduleInstance : root.allSubModules()) {
+            moduleInstance.getProperties().forEach((property, element) -> {
+                JsonElement old = map.get(property);
+                if (old == null) {
+                    map.put(property, element);
+                } else {
+                    try {
+                        map.put(property, property.merge(old, element, type));
+                    } catch (RuntimeException e) {
+                        LOGGER.error("could not merge property " + RegistryInventory.moduleProperties.findKey(property) + " of module " + moduleInstance.module.getName(), e);
+                        failed.putIfAbsent(property, e);
+                        map.put(property, element);
+                    }
+                }
+            });
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * The merged properties of one {@link MergeType} together with the failures that occurred while merging them.
+     */
+    protected record Merged(Map<ModuleProperty, JsonElement> properties, Map<ModuleProperty, RuntimeException> failures) {
+    }
+}
@@ -47,8 +47,8 @@ public class SynergyManager {
             }
             return oldMap;
         });
-        Miapi.registerReloadHandler(ReloadEvents.MAIN, "synergies", maps, (isClient, path, data) -> {
-            load(data);
+        Miapi.registerJsonReloadHandler(ReloadEvents.MAIN, "synergies", maps, (isClient, path, data) -> {
+            load(data.getAsJsonObject());
         }, 2);
         ReloadEvents.END.subscribe((isClient -> {
             int size = 0;
@@ -60,7 +60,10 @@ public class SynergyManager {
     }
 
     public static void load(String data) {
-        JsonObject element = Miapi.gson.fromJson(data, JsonObject.class);
+        load(Miapi.gson.fromJson(data, JsonObject.class));
+    }
+
+    public static void load(JsonObject element) {
         element.getAsJsonObject().entrySet().forEach((entry) -> {
             if (element.has("type")) {
                 String type = element.get("type").getAsString();